@@ -0,0 +1,67 @@
+package cn.navclub.nes4j.app.audio;
+
+/**
+ * Single producer single consumer lock free sample ring. Producer(emulation thread) only move {@link #head} and
+ * consumer(audio thread) only move {@link #tail}, sample written before head update is visible to consumer
+ * because head and tail are volatile.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class AudioRing {
+    private final int mask;
+    private final short[] buffer;
+    //Total sample count written by producer
+    private volatile long head;
+    //Total sample count read by consumer
+    private volatile long tail;
+
+    /**
+     * @param capacity Min sample capacity, round up to power of two
+     */
+    public AudioRing(int capacity) {
+        var size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.buffer = new short[size];
+    }
+
+    /**
+     * Write samples as many as free space allow, only called by producer
+     *
+     * @return Written sample count
+     */
+    public int write(short[] samples, int offset, int length) {
+        var head = this.head;
+        var count = Math.min(length, this.buffer.length - (int) (head - this.tail));
+        for (var i = 0; i < count; i++) {
+            this.buffer[(int) (head + i) & this.mask] = samples[offset + i];
+        }
+        this.head = head + count;
+        return count;
+    }
+
+    /**
+     * Read available samples, only called by consumer
+     *
+     * @return Read sample count
+     */
+    public int read(short[] samples, int offset, int length) {
+        var tail = this.tail;
+        var count = Math.min(length, (int) (this.head - tail));
+        for (var i = 0; i < count; i++) {
+            samples[offset + i] = this.buffer[(int) (tail + i) & this.mask];
+        }
+        this.tail = tail + count;
+        return count;
+    }
+
+    /**
+     * Sample count wait read
+     */
+    public int size() {
+        return (int) (this.head - this.tail);
+    }
+
+    public int capacity() {
+        return this.buffer.length;
+    }
+}
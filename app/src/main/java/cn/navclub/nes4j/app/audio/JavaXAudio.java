@@ -3,59 +3,153 @@ package cn.navclub.nes4j.app.audio;
 import cn.navclub.nes4j.bin.apu.Player;
 import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import lombok.Getter;
 
 import javax.sound.sampled.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 
+/**
+ * <p>
+ * Java sound player. Emulation thread push samples to a {@link AudioRing} and audio thread drain ring to line,
+ * line write block audio thread until device consume sample.
+ * </p>
+ * <p>
+ * Emulation speed and audio device clock never match exactly, so block is resampled before push and effective
+ * sample rate is nudged at most {@link #MAX_ADJUST} depend on how far buffered sample is from {@link #TARGET_MILLIS},
+ * so buffered sample(ring and line) is kept near target instead of slowly drift to underrun or overrun. After start
+ * or underrun audio thread wait ring fill up to target before write line again.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
 @SuppressWarnings("all")
 public class JavaXAudio implements Player {
-    private final byte[] sample;
-    private final byte[] buffer;
-    private final Line.Info info;
+    //Ring capacity
+    private final static int RING_MILLIS = 200;
+    //Buffered sample which rate control keep
+    private final static int TARGET_MILLIS = 50;
+    //Line buffer size
+    private final static int LINE_MILLIS = 30;
+    //Max effective sample rate adjust
+    private final static double MAX_ADJUST = 0.005;
+    private final static int SAMPLE_SIZE = 55;
+
+    private static final LoggerDelegate log = LoggerFactory.logger(JavaXAudio.class);
+
+    private final AudioRing ring;
+    private final int sampleRate;
+    //Single sample cache of 8 bit api
+    private final short[] cache;
     private final AudioFormat format;
     private final SourceDataLine line;
-    private int ldx;
-    //Current fill index
-    private int index;
     private final Thread thread;
+    private final Resampler resampler;
+    //Current fill index of cache
+    private int index;
     private volatile boolean stop;
-    private final static int SAMPLE_SIZE = 55;
-
-    private static final LoggerDelegate log = LoggerFactory.logger(JavaXAudio.class);
+    /**
+     * Count of line drained while ring was empty
+     */
+    @Getter
+    private volatile int underrun;
+    /**
+     * Count of block which ring can't hold completely
+     */
+    @Getter
+    private volatile int overrun;
 
 
     public JavaXAudio(Integer sampleRate) throws LineUnavailableException {
-        this.sample = new byte[SAMPLE_SIZE];
-        this.buffer = new byte[SAMPLE_SIZE];
-        this.thread = new Thread(this::exec);
-        this.format = new AudioFormat(sampleRate, 8, 1, false, false);
-        this.info = new DataLine.Info(SourceDataLine.class, format);
-        this.line = (SourceDataLine) AudioSystem.getLine(info);
-
-        line.open(format);
+        this.sampleRate = sampleRate;
+        this.cache = new short[SAMPLE_SIZE];
+        this.resampler = new Resampler();
+        this.ring = new AudioRing(sampleRate * RING_MILLIS / 1000);
+        this.thread = new Thread(this::exec, "audio");
+        this.format = new AudioFormat(sampleRate, 16, 1, true, false);
+        this.line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, format));
+
+        line.open(format, sampleRate * LINE_MILLIS / 1000 * 2);
         line.start();
 
+        this.thread.setDaemon(true);
         this.thread.start();
     }
 
+    /**
+     * Adapter of 8 bit unsigned sample, sample is collected to block of {@link #SAMPLE_SIZE}
+     */
     @Override
     public void output(byte sample) {
-        this.buffer[this.index] = sample;
+        this.cache[this.index] = (short) (((sample & 0xff) - 0x80) << 8);
         this.index++;
         if (this.index == SAMPLE_SIZE) {
             this.index = 0;
-            System.arraycopy(this.buffer, 0, this.sample, 0, SAMPLE_SIZE);
-            LockSupport.unpark(this.thread);
+            this.output(this.cache, 0, SAMPLE_SIZE);
         }
-        this.index %= SAMPLE_SIZE;
     }
 
+    @Override
+    public void output(short[] samples, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        //Produce more sample when buffered sample is below target, less when above target
+        var target = this.sampleRate * TARGET_MILLIS / 1000;
+        var error = (double) (target - this.pending()) / target;
+        var ratio = 1 + MAX_ADJUST * Math.max(-1, Math.min(1, error));
+        var count = this.resampler.resample(samples, offset, length, 1 / ratio);
+        if (this.ring.write(this.resampler.buffer(), 0, count) < count) {
+            this.overrun++;
+        }
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Latency from sample pushed to it is played
+     *
+     * @return Latency in milliseconds
+     */
+    @Override
+    public int getLatency() {
+        return this.pending() * 1000 / this.sampleRate;
+    }
+
+    /**
+     * Sample count in ring and line
+     */
+    private int pending() {
+        return this.ring.size() + (this.line.getBufferSize() - this.line.available()) / 2;
+    }
 
     private void exec() {
+        var chunk = new short[this.sampleRate * LINE_MILLIS / 1000 / 2];
+        var bytes = new byte[chunk.length * 2];
+        var target = this.sampleRate * TARGET_MILLIS / 1000;
+        var drained = true;
         while (!this.stop) {
-            LockSupport.park();
-            this.line.write(this.sample, 0, SAMPLE_SIZE);
+            if (drained && this.ring.size() < target) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            var count = this.ring.read(chunk, 0, chunk.length);
+            if (count == 0) {
+                //Line play silence when it run out of sample
+                if (!drained && this.line.available() >= this.line.getBufferSize()) {
+                    drained = true;
+                    this.underrun++;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            drained = false;
+            //16 bit little endian
+            for (var i = 0; i < count; i++) {
+                bytes[i * 2] = (byte) chunk[i];
+                bytes[i * 2 + 1] = (byte) (chunk[i] >> 8);
+            }
+            this.line.write(bytes, 0, count * 2);
         }
     }
 
@@ -64,10 +158,12 @@ public class JavaXAudio implements Player {
         this.stop = true;
         LockSupport.unpark(this.thread);
         this.line.close();
+        log.info("Audio player stop, underrun:{} overrun:{}", this.underrun, this.overrun);
     }
 
     @Override
     public void reset() {
         this.index = 0;
+        this.resampler.reset();
     }
 }
@@ -0,0 +1,57 @@
+package cn.navclub.nes4j.app.audio;
+
+/**
+ * Linear interpolation resampler which keep continuous across block. Point 0 of a block is last sample of previous
+ * block and point k is {@code samples[offset + k - 1]}, fractional position left by previous block is carried to
+ * next block.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+class Resampler {
+    //Resample output
+    private short[] buffer;
+    //Resample position relative to last sample of previous block
+    private double position;
+    private short previous;
+
+    Resampler() {
+        this.buffer = new short[0];
+    }
+
+    /**
+     * Resample a block to {@link #buffer()}
+     *
+     * @param step Input sample count per output sample
+     * @return Output sample count
+     */
+    int resample(short[] samples, int offset, int length, double step) {
+        var max = (int) (length / step) + 2;
+        if (this.buffer.length < max) {
+            this.buffer = new short[max];
+        }
+        var count = 0;
+        var position = this.position;
+        while (position < length) {
+            var i = (int) position;
+            var a = i == 0 ? this.previous : samples[offset + i - 1];
+            var b = samples[offset + i];
+            this.buffer[count++] = (short) Math.round(a + (b - a) * (position - i));
+            position += step;
+        }
+        this.position = position - length;
+        this.previous = samples[offset + length - 1];
+        return count;
+    }
+
+    /**
+     * Output of last {@link #resample(short[], int, int, double)}, valid until next call
+     */
+    short[] buffer() {
+        return this.buffer;
+    }
+
+    void reset() {
+        this.position = 0;
+        this.previous = 0;
+    }
+}
@@ -0,0 +1,102 @@
+package cn.navclub.nes4j.app.audio;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class AudioRingTest {
+    @Test
+    void capacity() {
+        Assertions.assertEquals(2, new AudioRing(1).capacity());
+        Assertions.assertEquals(64, new AudioRing(64).capacity());
+        Assertions.assertEquals(128, new AudioRing(65).capacity());
+        Assertions.assertEquals(16384, new AudioRing(44100 * 200 / 1000).capacity());
+    }
+
+    @Test
+    void writeFullRead() {
+        var ring = new AudioRing(8);
+        var samples = new short[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        //Only free space is written
+        Assertions.assertEquals(8, ring.write(samples, 0, samples.length));
+        Assertions.assertEquals(8, ring.size());
+        Assertions.assertEquals(0, ring.write(samples, 8, 2));
+
+        var out = new short[5];
+        Assertions.assertEquals(5, ring.read(out, 0, out.length));
+        Assertions.assertArrayEquals(new short[]{1, 2, 3, 4, 5}, out);
+        //Wrap around buffer end
+        Assertions.assertEquals(2, ring.write(samples, 8, 2));
+        out = new short[10];
+        Assertions.assertEquals(5, ring.read(out, 0, out.length));
+        Assertions.assertArrayEquals(new short[]{6, 7, 8, 9, 10, 0, 0, 0, 0, 0}, out);
+        Assertions.assertEquals(0, ring.size());
+        Assertions.assertEquals(0, ring.read(out, 0, out.length));
+    }
+
+    /**
+     * Producer and consumer thread pass a counting sequence with random block size through a small ring, consumer
+     * must see every sample once and in order.
+     */
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void concurrent() throws InterruptedException {
+        var total = 5_000_000L;
+        var ring = new AudioRing(256);
+        var error = new AtomicReference<String>();
+
+        var producer = new Thread(() -> {
+            var random = ThreadLocalRandom.current();
+            var block = new short[100];
+            var next = 0L;
+            while (next < total) {
+                var length = (int) Math.min(random.nextInt(1, block.length + 1), total - next);
+                for (var i = 0; i < length; i++) {
+                    block[i] = (short) (next + i);
+                }
+                var offset = 0;
+                while (offset < length) {
+                    offset += ring.write(block, offset, length - offset);
+                    if (offset < length) {
+                        Thread.yield();
+                    }
+                }
+                next += length;
+            }
+        }, "producer");
+
+        var consumer = new Thread(() -> {
+            var random = ThreadLocalRandom.current();
+            var block = new short[100];
+            var expect = 0L;
+            while (expect < total) {
+                var count = ring.read(block, 0, random.nextInt(1, block.length + 1));
+                for (var i = 0; i < count; i++, expect++) {
+                    if (block[i] != (short) expect) {
+                        error.set("sample %d expect %d but got %d".formatted(expect, (short) expect, block[i]));
+                        return;
+                    }
+                }
+                if (count == 0) {
+                    Thread.yield();
+                }
+            }
+        }, "consumer");
+
+        //Producer retry forever on full ring if consumer failed
+        producer.setDaemon(true);
+        producer.start();
+        consumer.start();
+        consumer.join();
+        Assertions.assertNull(error.get(), error.get());
+        producer.join();
+        Assertions.assertEquals(0, ring.size());
+    }
+}
@@ -0,0 +1,85 @@
+package cn.navclub.nes4j.app.audio;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+/**
+ * Rate control resample of {@link JavaXAudio}, ratio is at most {@code 1 ± 0.005}.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class ResamplerTest {
+    private static final double MAX_ADJUST = 0.005;
+    //Block sizes of a 44100Hz frame and 8 bit api block
+    private static final int[] BLOCKS = {735, 55, 736, 1, 734, 55, 2};
+
+    @Test
+    void unitRatio() {
+        var resampler = new Resampler();
+        var samples = new short[]{10, 20, 30, 40};
+        Assertions.assertEquals(4, resampler.resample(samples, 0, 4, 1));
+        //Point 0 is last sample of previous block
+        Assertions.assertArrayEquals(new short[]{0, 10, 20, 30}, Arrays.copyOf(resampler.buffer(), 4));
+        Assertions.assertEquals(2, resampler.resample(new short[]{0, 50, 60, 0}, 1, 2, 1));
+        Assertions.assertArrayEquals(new short[]{40, 50}, Arrays.copyOf(resampler.buffer(), 2));
+    }
+
+    @Test
+    void outputCount() {
+        for (var ratio : new double[]{1 - MAX_ADJUST, 1, 1 + MAX_ADJUST}) {
+            var resampler = new Resampler();
+            var step = 1 / ratio;
+            var input = 0L;
+            var output = 0L;
+            for (var n = 0; n < 1000; n++) {
+                var length = BLOCKS[n % BLOCKS.length];
+                var count = resampler.resample(new short[length], 0, length, step);
+                //Carried fractional position move at most one sample between blocks
+                Assertions.assertTrue(Math.abs(count - length * ratio) <= 1, "ratio %f block %d count %d".formatted(ratio, length, count));
+                input += length;
+                output += count;
+            }
+            //No sample is lost or repeated over blocks
+            Assertions.assertTrue(Math.abs(output - input * ratio) <= 1, "ratio %f input %d output %d".formatted(ratio, input, output));
+        }
+    }
+
+    /**
+     * Ramp {@code 3 * (i + 1)} start from previous sample 0, so output {@code j} is ramp value at position
+     * {@code j * step} whether or not it is interpolated across block boundary.
+     */
+    @Test
+    void continuity() {
+        for (var ratio : new double[]{1 - MAX_ADJUST, 1 + MAX_ADJUST}) {
+            var resampler = new Resampler();
+            var step = 1 / ratio;
+            var next = 0;
+            var index = 0L;
+            for (var n = 0; n < 4 * BLOCKS.length; n++) {
+                var length = BLOCKS[n % BLOCKS.length];
+                var samples = new short[length + 3];
+                for (var i = 0; i < length; i++) {
+                    samples[i + 3] = (short) (3 * (next + i + 1));
+                }
+                var count = resampler.resample(samples, 3, length, step);
+                var buffer = resampler.buffer();
+                for (var j = 0; j < count; j++, index++) {
+                    var expect = 3 * index * step;
+                    Assertions.assertTrue(Math.abs(buffer[j] - expect) <= 1, "ratio %f output %d expect %f got %d".formatted(ratio, index, expect, buffer[j]));
+                }
+                next += length;
+            }
+        }
+    }
+
+    @Test
+    void reset() {
+        var resampler = new Resampler();
+        resampler.resample(new short[]{100, 200, 300}, 0, 3, 0.7);
+        resampler.reset();
+        Assertions.assertEquals(2, resampler.resample(new short[]{10, 20}, 0, 2, 1));
+        Assertions.assertArrayEquals(new short[]{0, 10}, Arrays.copyOf(resampler.buffer(), 2));
+    }
+}
@@ -0,0 +1,201 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.config.AudioSampleRate;
+import cn.navclub.nes4j.bin.config.PaceMode;
+import cn.navclub.nes4j.bin.config.SyncMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Headless emulator throughput. Each operation build a console, run {@link #frames} unthrottled frames and count
+ * executed instructions, {@code instructions} secondary result is instructions per second.
+ * </p>
+ * <p>
+ * Default rom is generated NROM cartridge, its main loop mix load/store of each addressing mode, arithmetic, shift,
+ * compare, stack, branch and subroutine instructions with rendering disabled. Other rom can be given by
+ * {@code -p rom=/path/to/game.nes}.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CPUBenchmark {
+    //Program start address
+    private static final int ORIGIN = 0x8000;
+    private static final int[][] BODY = {
+            {0xa9, 0x37},           //LDA #$37
+            {0x65, 0x20},           //ADC $20
+            {0x85, 0x21},           //STA $21
+            {0xbd, 0x00, 0x02},     //LDA $0200,X
+            {0x9d, 0x00, 0x02},     //STA $0200,X
+            {0xb1, 0x10},           //LDA ($10),Y
+            {0x91, 0x10},           //STA ($10),Y
+            {0xe8},                 //INX
+            {0xc8},                 //INY
+            {0xe9, 0x05},           //SBC #$05
+            {0x29, 0x7f},           //AND #$7F
+            {0x05, 0x22},           //ORA $22
+            {0x49, 0xaa},           //EOR #$AA
+            {0xaa},                 //TAX
+            {0xa8},                 //TAY
+            {0x8a},                 //TXA
+            {0x18},                 //CLC
+            {0x0a},                 //ASL A
+            {0x46, 0x23},           //LSR $23
+            {0x2a},                 //ROL A
+            {0x66, 0x24},           //ROR $24
+            {0xe6, 0x25},           //INC $25
+            {0xc6, 0x26},           //DEC $26
+            {0xc9, 0x40},           //CMP #$40
+            {0xd0, 0x00},           //BNE *+2
+            {0xe0, 0x10},           //CPX #$10
+            {0xf0, 0x00},           //BEQ *+2
+            {0xc4, 0x27},           //CPY $27
+            {0x90, 0x00},           //BCC *+2
+            {0x24, 0x28},           //BIT $28
+            {0x38},                 //SEC
+            {0x48},                 //PHA
+            {0x68},                 //PLA
+            {0xb0, 0x00},           //BCS *+2
+            {0xad, 0x00, 0x03},     //LDA $0300
+            {0x8d, 0x01, 0x03},     //STA $0301
+            {0x98},                 //TYA
+            {0xca},                 //DEX
+            {0xea},                 //NOP
+    };
+
+    @Param({"LOCKSTEP", "CATCH_UP"})
+    private SyncMode syncMode;
+    @Param("60")
+    private int frames;
+    //iNES file, empty use generated cartridge
+    @Param("")
+    private String rom;
+
+    private byte[] buffer;
+    private NesConsole console;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counter {
+        public long instructions;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            this.instructions = 0;
+        }
+    }
+
+    /**
+     * Discard all samples
+     */
+    public static class SilentPlayer implements Player {
+        public SilentPlayer(Integer sampleRate) {
+        }
+
+        @Override
+        public void output(byte sample) {
+
+        }
+
+        @Override
+        public void output(short[] samples, int offset, int length) {
+
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        this.buffer = this.rom.isEmpty() ? cartridge() : Files.readAllBytes(Path.of(this.rom));
+    }
+
+    @Setup(Level.Invocation)
+    public void build() {
+        var count = new int[1];
+        this.console = NesConsole.Builder.newBuilder()
+                .buffer(this.buffer)
+                .syncMode(this.syncMode)
+                .paceMode(PaceMode.UNTHROTTLED)
+                .player(SilentPlayer.class)
+                .sampleRate(AudioSampleRate.HZ44100)
+                .hook((fps, enableRender, frame, joyPad, joyPad1) -> {
+                    if (++count[0] >= this.frames) {
+                        this.console.stop();
+                    }
+                })
+                .build();
+    }
+
+    @Benchmark
+    public void execute(Counter counter) {
+        this.console.execute();
+        counter.instructions += this.console.getCpu().getInstructions();
+    }
+
+    /**
+     * 32KB PRG-ROM and 8KB CHR-ROM mapper 0 cartridge, main loop repeat {@link #BODY} four times and call an empty
+     * subroutine between them. Indexed and indirect access stay in $0200-$03FF.
+     */
+    private static byte[] cartridge() {
+        var prg = new byte[0x8000];
+        var code = new ByteArrayOutputStream();
+        //SEI, CLD, LDX #$FF, TXS
+        write(code, 0x78, 0xd8, 0xa2, 0xff, 0x9a);
+        //Indirect pointer $10 = $0300
+        write(code, 0xa9, 0x00, 0x85, 0x10, 0xa9, 0x03, 0x85, 0x11);
+        var loop = ORIGIN + code.size();
+        //Body size + JSR
+        var length = 3;
+        for (var instruction : BODY) {
+            length += instruction.length;
+        }
+        var subroutine = loop + length * 4 + 3;
+        for (var i = 0; i < 4; i++) {
+            for (var instruction : BODY) {
+                write(code, instruction);
+            }
+            //JSR subroutine
+            write(code, 0x20, subroutine & 0xff, subroutine >> 8);
+        }
+        //JMP loop
+        write(code, 0x4c, loop & 0xff, loop >> 8);
+        //Subroutine: RTS
+        write(code, 0x60);
+        var interrupt = ORIGIN + code.size();
+        //NMI/IRQ: RTI
+        write(code, 0x40);
+        var bytes = code.toByteArray();
+        System.arraycopy(bytes, 0, prg, 0, bytes.length);
+        //NMI, RESET and IRQ vectors
+        var vectors = new int[]{interrupt, ORIGIN, interrupt};
+        for (var i = 0; i < vectors.length; i++) {
+            prg[0x7ffa + i * 2] = (byte) vectors[i];
+            prg[0x7ffb + i * 2] = (byte) (vectors[i] >> 8);
+        }
+        var out = new ByteArrayOutputStream();
+        //iNES header: 2 x 16KB PRG-ROM, 1 x 8KB CHR-ROM, mapper 0
+        write(out, 'N', 'E', 'S', 0x1a, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        out.writeBytes(prg);
+        out.writeBytes(new byte[0x2000]);
+        return out.toByteArray();
+    }
+
+    private static void write(ByteArrayOutputStream out, int... bytes) {
+        for (var b : bytes) {
+            out.write(b);
+        }
+    }
+}
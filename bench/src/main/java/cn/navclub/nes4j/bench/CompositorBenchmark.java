@@ -0,0 +1,99 @@
+package cn.navclub.nes4j.bench;
+
+import cn.navclub.nes4j.bin.ppu.Frame;
+import cn.navclub.nes4j.bin.ppu.LineCompositor;
+import cn.navclub.nes4j.bin.ppu.ScalarCompositor;
+import cn.navclub.nes4j.bin.ppu.register.PPUMask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Scanline compositing cost of {@link ScalarCompositor} against Vector API compositor of {@code nes4j-vector}
+ * module, which is loaded by {@link LineCompositor#create()}. Each operation composite one 256 pixel line, input
+ * is {@link #ROWS} random background/sprite rows with transparent pixels and behind background sprites.
+ * </p>
+ * <p>
+ * Before measure, vector output is compared with scalar output for every row and left column mask combination.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class CompositorBenchmark {
+    private static final int ROWS = 64;
+    //Show background and sprite, left column background hidden
+    private static final byte MASK = 0x1a;
+    private static final int[] MASKS = {0x18, 0x1e, 0x1a, 0x1c, 0x08, 0x10};
+    private static final int BACKDROP = 0x123456;
+
+    @Param({"scalar", "vector"})
+    private String compositor;
+
+    private int index;
+    private PPUMask mask;
+    private int[] line;
+    private int[][] background;
+    private int[][] foreground;
+    private LineCompositor target;
+
+    @Setup
+    public void setup() {
+        var random = new Random(5);
+        this.line = new int[Frame.width];
+        this.mask = new PPUMask();
+        this.background = new int[ROWS][Frame.width + 8];
+        this.foreground = new int[ROWS][Frame.width];
+        for (var i = 0; i < ROWS; i++) {
+            for (var x = 0; x < this.background[i].length; x++) {
+                var pixel = random.nextInt(0x1000000);
+                //Transparent background pixel is negative
+                this.background[i][x] = random.nextInt(4) == 0 ? pixel | 0x80000000 : pixel;
+            }
+            for (var x = 0; x < Frame.width; x++) {
+                //Bit 30 is sprite behind background flag
+                this.foreground[i][x] = random.nextInt(3) == 0 ? -1 : random.nextInt(2) << 30 | random.nextInt(0x1000000);
+            }
+        }
+        var scalar = new ScalarCompositor();
+        if (this.compositor.equals("scalar")) {
+            this.target = scalar;
+        } else {
+            this.target = LineCompositor.create();
+            if (this.target instanceof ScalarCompositor) {
+                throw new IllegalStateException("Vector compositor not found, check nes4j-vector and jdk.incubator.vector.");
+            }
+            this.verify(scalar);
+        }
+        this.mask.setBits(MASK);
+    }
+
+    private void verify(LineCompositor scalar) {
+        var expect = new int[Frame.width];
+        for (var value : MASKS) {
+            this.mask.setBits((byte) value);
+            for (var i = 0; i < ROWS; i++) {
+                scalar.composite(this.background[i], i & 7, this.foreground[i], BACKDROP, this.mask, expect);
+                this.target.composite(this.background[i], i & 7, this.foreground[i], BACKDROP, this.mask, this.line);
+                if (!Arrays.equals(expect, this.line)) {
+                    throw new IllegalStateException("Row " + i + " mask 0x" + Integer.toHexString(value) + " mismatch.");
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] composite() {
+        var i = (this.index++) & (ROWS - 1);
+        this.target.composite(this.background[i], i & 7, this.foreground[i], BACKDROP, this.mask, this.line);
+        return this.line;
+    }
+}
@@ -0,0 +1,164 @@
+package cn.navclub.nes4j.bin.build;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Build time 6502 opcode table generator.It parses {@code 6502.txt} and writes a dense
+ * {@code cn.navclub.nes4j.bin.core.OpcodeTable} source file,so the emulator does not parse text on class init.
+ * <p>
+ * The build fails on malformed line,duplicate opcode,size not match address mode or opcode neither defined
+ * nor declared as {@link #UNDEFINED}.
+ * <p>
+ * Usage: {@code java OpcodeTableGenerator.java <6502.txt> <output source dir>}
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class OpcodeTableGenerator {
+    private static final String PACKAGE = "cn.navclub.nes4j.bin.core";
+    private static final String CLASS_NAME = "OpcodeTable";
+
+    /**
+     * Opcode not implemented by emulator (JAM/KIL and some unstable unofficial instruction)
+     */
+    private static final Set<Integer> UNDEFINED = Set.of(
+            0x02, 0x12, 0x22, 0x32, 0x42, 0x52, 0x62, 0x72, 0x92, 0xB2, 0xD2, 0xF2,
+            0x44, 0x54, 0x64, 0x67, 0x6F, 0x73, 0x74, 0x77, 0x93, 0x9B, 0x9C, 0x9F, 0xCB
+    );
+
+    /**
+     * Address mode instruction byte size
+     */
+    private static final Map<String, Integer> MODE_SIZE = Map.ofEntries(
+            Map.entry("Accumulator", 1),
+            Map.entry("Implied", 1),
+            Map.entry("Immediate", 2),
+            Map.entry("ZeroPage", 2),
+            Map.entry("ZeroPage_X", 2),
+            Map.entry("ZeroPage_Y", 2),
+            Map.entry("Relative", 2),
+            Map.entry("Indirect_X", 2),
+            Map.entry("Indirect_Y", 2),
+            Map.entry("Absolute", 3),
+            Map.entry("Absolute_X", 3),
+            Map.entry("Absolute_Y", 3),
+            Map.entry("Indirect", 3)
+    );
+
+    //Emulator custom instruction,it compute size itself when execute
+    private static final String LOG = "LOG";
+
+    record Row(int lineNum, String instruction, String mode, int openCode, int cycle, int size) {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: OpcodeTableGenerator <6502.txt> <output dir>");
+        }
+        var input = Path.of(args[0]);
+        var table = parse(input);
+        var source = generate(table, input.getFileName().toString());
+        var target = Path.of(args[1], PACKAGE.split("\\.")).resolve(CLASS_NAME + ".java");
+        //Keep file unchanged avoid trigger incremental compile
+        if (Files.exists(target) && Files.readString(target, StandardCharsets.UTF_8).equals(source)) {
+            return;
+        }
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, source, StandardCharsets.UTF_8);
+    }
+
+    static Row[] parse(Path input) throws IOException {
+        var errors = new ArrayList<String>();
+        var table = new Row[256];
+        var lineNum = 0;
+        for (var line : Files.readAllLines(input, StandardCharsets.UTF_8)) {
+            lineNum++;
+            line = line.trim();
+            //Skip comment and blank line
+            if (line.startsWith(";") || line.isBlank()) {
+                continue;
+            }
+            var arr = line.split("\\s+");
+            if (arr.length != 5) {
+                errors.add("line %d: expect 'ins-name address-mode open-code cycle size' but got '%s'".formatted(lineNum, line));
+                continue;
+            }
+            final Row row;
+            try {
+                row = new Row(
+                        lineNum,
+                        arr[0],
+                        arr[1],
+                        Byte.parseByte(arr[2]) & 0xff,
+                        Integer.parseInt(arr[3]),
+                        Integer.parseInt(arr[4])
+                );
+            } catch (NumberFormatException e) {
+                errors.add("line %d: illegal number '%s'".formatted(lineNum, line));
+                continue;
+            }
+            var expect = MODE_SIZE.get(row.mode());
+            if (expect == null) {
+                errors.add("line %d: unknown address mode '%s'".formatted(lineNum, row.mode()));
+                continue;
+            }
+            if (!(row.instruction().equals(LOG) || row.size() == expect)) {
+                errors.add("line %d: %s %s size is %d,expect %d".formatted(lineNum, row.instruction(), row.mode(), row.size(), expect));
+            }
+            var exist = table[row.openCode()];
+            if (exist != null) {
+                errors.add("line %d: repeat define opcode 0x%02X,first defined in line %d".formatted(lineNum, row.openCode(), exist.lineNum()));
+                continue;
+            }
+            table[row.openCode()] = row;
+        }
+        for (var i = 0; i < table.length; i++) {
+            var undefined = UNDEFINED.contains(i);
+            if (table[i] == null && !undefined) {
+                errors.add("missing opcode 0x%02X".formatted(i));
+            }
+            if (table[i] != null && undefined) {
+                errors.add("line %d: opcode 0x%02X was declared undefined".formatted(table[i].lineNum(), i));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("%s check fail:\n%s".formatted(input, String.join("\n", errors)));
+        }
+        return table;
+    }
+
+    private static String generate(Row[] table, String from) {
+        var builder = new StringBuilder();
+        builder.append("package ").append(PACKAGE).append(";\n\n");
+        builder.append("import cn.navclub.nes4j.bin.config.AddressMode;\n");
+        builder.append("import cn.navclub.nes4j.bin.config.Instruction;\n");
+        builder.append("import cn.navclub.nes4j.bin.config.WS6502;\n\n");
+        builder.append("/**\n");
+        builder.append(" * Generated from {@code ").append(from).append("} by OpcodeTableGenerator,do not edit.\n");
+        builder.append(" */\n");
+        builder.append("final class ").append(CLASS_NAME).append(" {\n");
+        builder.append("    /**\n");
+        builder.append("     * Opcode metadata indexed by unsigned opcode value,undefined opcode slot is {@code null}\n");
+        builder.append("     */\n");
+        builder.append("    static final WS6502[] TABLE = {\n");
+        for (var i = 0; i < table.length; i++) {
+            var row = table[i];
+            builder.append("            /* 0x%02X */ ".formatted(i));
+            if (row == null) {
+                builder.append("null");
+            } else {
+                builder.append("new WS6502((byte) 0x%02X, %d, %d, AddressMode.%s, Instruction.%s)".formatted(
+                        i, row.size(), row.cycle(), row.mode(), row.instruction()));
+            }
+            builder.append(i == table.length - 1 ? "\n" : ",\n");
+        }
+        builder.append("    };\n\n");
+        builder.append("    private ").append(CLASS_NAME).append("() {\n");
+        builder.append("    }\n");
+        builder.append("}\n");
+        return builder.toString();
+    }
+}
@@ -2,12 +2,19 @@ package cn.navclub.nes4j.bin;
 
 import cn.navclub.nes4j.bin.apu.APU;
 import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.config.AudioMode;
 import cn.navclub.nes4j.bin.config.AudioSampleRate;
+import cn.navclub.nes4j.bin.config.FrameFormat;
 import cn.navclub.nes4j.bin.config.NMapper;
+import cn.navclub.nes4j.bin.config.PaceMode;
+import cn.navclub.nes4j.bin.config.RenderMode;
+import cn.navclub.nes4j.bin.config.SyncMode;
 import cn.navclub.nes4j.bin.config.TV;
+import cn.navclub.nes4j.bin.config.TimedEvent;
 import cn.navclub.nes4j.bin.core.*;
 import cn.navclub.nes4j.bin.debug.Debugger;
 import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.InterruptLine;
 import cn.navclub.nes4j.bin.function.GameLoopCallback;
 import cn.navclub.nes4j.bin.io.Cartridge;
 import cn.navclub.nes4j.bin.io.JoyPad;
@@ -17,6 +24,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.io.File;
+import java.util.Objects;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
@@ -32,9 +40,9 @@ public class NesConsole {
     private final JoyPad joyPad;
     private final JoyPad joyPad1;
     private final Cartridge cartridge;
+    private final Scheduler scheduler;
+    private final FramePacer pacer;
 
-    private int fps;
-    private int tfps;
     //cpu stall cycle
     private int stall;
     //APU mute
@@ -42,14 +50,26 @@ public class NesConsole {
     @Getter
     private boolean mute;
     private Debugger debugger;
-    private long lastFrameTime;
+    //Skip pixel composition of next frames, e.g. headless run or fast-forward
+    private volatile boolean renderSkip;
+    //Adaptive frame skip,skip pixel composition automatically when host fall behind tv fps
+    private final boolean frameSkip;
     private volatile boolean stop;
     private volatile boolean reset;
-    @SuppressWarnings("all")
-    private BlockingQueue<CPUInterrupt> queue;
+    //Hardware interrupt line state,bit set of InterruptLine mask
+    private int interrupt;
     private final NesConsoleHook hook;
     @Getter
     private final Class<? extends Player> player;
+    private final SyncMode syncMode;
+    //APU/PPU cycles not yet executed in catch-up mode
+    private int pending;
+    //Idle loop detector,only used in catch-up mode
+    private final IdleLoopDetector detector;
+    //PPU finished a frame, output it at next instruction boundary
+    private boolean frameEnd;
+    private boolean renderEnable;
+    private Frame frame;
 
     private NesConsole(Builder builder) {
         if (builder.buffer != null) {
@@ -63,16 +83,29 @@ public class NesConsole {
         this.joyPad = new JoyPad();
         this.joyPad1 = new JoyPad();
         this.player = builder.player;
+        this.syncMode = Objects.requireNonNullElse(builder.syncMode, SyncMode.LOCKSTEP);
+        this.frameSkip = builder.frameSkip;
         this.thread = Thread.currentThread();
-        this.queue = new LinkedBlockingQueue<>(10);
+        this.scheduler = new Scheduler();
+        this.pacer = new FramePacer(this, Objects.requireNonNullElse(builder.paceMode, PaceMode.WALL_CLOCK));
         this.mapper = this.cartridge.getMapper().newProvider(this.cartridge, this);
 
-        this.apu = new APU(builder.sampleRate, this);
-        this.ppu = new PPU(this, cartridge.getMirrors());
+        this.apu = new APU(builder.sampleRate, Objects.requireNonNullElse(builder.audioMode, AudioMode.INLINE), this);
+        this.ppu = new PPU(
+                this,
+                cartridge.getMirrors(),
+                Objects.requireNonNullElse(builder.renderMode, RenderMode.DOT),
+                Objects.requireNonNullElse(builder.frameFormat, FrameFormat.ARGB)
+        );
         this.bus = new MemoryBus(this, joyPad, joyPad1);
 
 
         this.cpu = new CPU(this);
+        if (this.syncMode == SyncMode.CATCH_UP && Objects.requireNonNullElse(builder.idleSkip, true)) {
+            this.detector = new IdleLoopDetector(this.cpu, this);
+        } else {
+            this.detector = null;
+        }
     }
 
     public void execute() {
@@ -81,20 +114,29 @@ public class NesConsole {
             if (this.reset) {
                 this.reset();
             }
-            CPUInterrupt interrupt;
-            while ((interrupt = queue.poll()) != null) {
-                this.stall += this.cpu.NMI_IRQ_BRKInterrupt(interrupt);
+            if (this.interrupt != 0) {
+                this.interrupt();
             }
-            var tmp = this.stall;
-            this.stall = 0;
-            while (tmp-- > 0) {
-                this.APU_PPuSync();
+            if (this.stall != 0) {
+                var tmp = this.stall;
+                this.stall = 0;
+                this.APU_PPuSync(tmp);
             }
             //Test line number has break point and block game loop
-            if (this.debugger != null && this.debugger.hack(this)) {
-                LockSupport.park();
+            if (this.debugger != null) {
+                this.catchUp();
+                if (this.debugger.hack(this)) {
+                    LockSupport.park();
+                }
             }
             this.cpu.next();
+            this.dueCatchUp();
+            if (this.frameEnd) {
+                this.videoOutput();
+            }
+            if (this.detector != null && this.debugger == null && !this.cpu.isTraceEnabled()) {
+                this.detector.check();
+            }
         }
     }
 
@@ -125,43 +167,94 @@ public class NesConsole {
     }
 
     private void reset() {
-        this.fps = 0;
-        this.tfps = 0;
+        this.interrupt = 0;
         this.stall = 0;
+        this.pending = 0;
+        this.frameEnd = false;
+        this.scheduler.reset();
         this.apu.reset();
         this.ppu.reset();
         this.cpu.reset();
         this.bus.reset();
+        this.pacer.reset();
         this.reset = false;
-        this.lastFrameTime = 0;
+        this.catchUp();
     }
 
     /**
-     * {@link APU} AND {@link  PPU} trigger IRQ AND NMI interrupt.
+     * {@link APU}, {@link  PPU} and {@link Mapper} update IRQ AND NMI interrupt line. NMI is edge triggered and
+     * latched until CPU service it, IRQ line keep asserted until device acknowledge it.
      *
-     * @param interrupt interrupt type
+     * @param line   Interrupt line
+     * @param active Line asserted or released
      */
-    public void hardwareInterrupt(CPUInterrupt interrupt) {
-        this.queue.add(interrupt);
+    public void hardwareInterrupt(InterruptLine line, boolean active) {
+        if (active) {
+            this.interrupt |= line.getMask();
+        } else {
+            this.interrupt &= ~line.getMask();
+        }
     }
 
-
-    public void videoOutput(long nano, boolean renderEnable, Frame frame) {
-        //Due to hook design immutable if hook was null direct return?
-        if (hook == null) {
-            return;
-        }
-        this.tfps++;
-        if (this.lastFrameTime == 0) {
-            this.lastFrameTime = nano;
+    /**
+     * NMI has priority over IRQ, IRQ is ignored when CPU interrupt disable flag was set.
+     */
+    private void interrupt() {
+        var nmi = InterruptLine.NMI.getMask();
+        var type = CPUInterrupt.IRQ;
+        if ((this.interrupt & nmi) != 0) {
+            this.interrupt &= ~nmi;
+            type = CPUInterrupt.NMI;
         }
-        var span = nano - this.lastFrameTime;
-        if (span > 1000_000_000) {
-            this.fps = this.tfps;
-            this.tfps = 0;
-            this.lastFrameTime = nano;
+        //Interrupt push cycles may tick DMC and add stall, so don't read stall before interrupt handled
+        var cycles = this.cpu.NMI_IRQ_BRKInterrupt(type);
+        this.stall += cycles;
+        this.dueCatchUp();
+    }
+
+    /**
+     * CPU skipped idle loop cycles, APU and PPU execute them in next catch up
+     *
+     * @param cycles Skipped cycles
+     */
+    public void idle(int cycles) {
+        this.pending += cycles;
+    }
+
+    /**
+     * PPU finished a frame at vblank start. Frame is not output immediately because PPU may be ticked in the middle
+     * of an instruction, game loop output it after current instruction.
+     *
+     * @param renderEnable Whether frame was rendered
+     * @param frame        Finished frame
+     */
+    public void frameEnd(boolean renderEnable, Frame frame) {
+        this.frameEnd = true;
+        this.renderEnable = renderEnable;
+        this.frame = frame;
+    }
+
+    /**
+     * Output finished frame to hook, wait until next frame should start by {@link FramePacer} and then decide
+     * whether next frame skip pixel composition.
+     */
+    private void videoOutput() {
+        this.frameEnd = false;
+        if (this.hook != null) {
+            this.hook.callback(this.pacer.getFps(), this.renderEnable, this.frame, this.joyPad, this.joyPad1);
         }
-        this.hook.callback(this.fps, renderEnable, frame, this.joyPad, this.joyPad1);
+        this.pacer.pace();
+        this.ppu.renderSkip();
+    }
+
+    /**
+     * Skip PPU pixel composition from next frame, sprite zero hit, sprite overflow and mapper observed PPU
+     * address are still emulated, so game logic is same. Skipped frame is output with render disabled.
+     *
+     * @param renderSkip Whether skip pixel composition
+     */
+    public void setRenderSkip(boolean renderSkip) {
+        this.renderSkip = renderSkip;
     }
 
     public void setStall(int span) {
@@ -191,11 +284,63 @@ public class NesConsole {
         return this.cartridge.getTv() == TV.NTSC ? 60 : 50;
     }
 
+    /**
+     * One CPU cycle elapsed. In {@link SyncMode#LOCKSTEP} mode APU and PPU are ticked immediately, otherwise
+     * cycle is recorded and executed by {@link #catchUp()}.
+     */
     public void APU_PPuSync() {
+        if (this.syncMode == SyncMode.CATCH_UP) {
+            this.pending++;
+            return;
+        }
+        this.tick();
+    }
+
+    /**
+     * Multiple CPU cycles elapsed(e.g. CPU stalled by DMA), catch-up mode only record them.
+     */
+    public void APU_PPuSync(int cycles) {
+        if (this.syncMode == SyncMode.CATCH_UP) {
+            this.pending += cycles;
+            return;
+        }
+        while (cycles-- > 0) {
+            this.tick();
+        }
+    }
+
+    private void tick() {
+        this.scheduler.tick();
         this.apu.tick();
         this.ppu.tick();
     }
 
+    /**
+     * Scheduled event may fire interrupt or stall cpu, catch up before them are checked
+     */
+    private void dueCatchUp() {
+        if (this.scheduler.getCycles() + this.pending >= this.scheduler.getNext()) {
+            this.catchUp();
+        }
+    }
+
+    /**
+     * In {@link SyncMode#CATCH_UP} mode advance APU and PPU all pending cycles and schedule next vblank,
+     * must be called before CPU access APU/PPU/mapper register.
+     */
+    public void catchUp() {
+        if (this.syncMode != SyncMode.CATCH_UP) {
+            return;
+        }
+        var cycles = this.pending;
+        this.pending = 0;
+        while (cycles-- > 0) {
+            this.tick();
+        }
+        //PPU is ticked by dot, predicted vblank only used as synchronization point
+        this.scheduler.schedule(TimedEvent.VBLANK, this.scheduler.getCycles() + this.ppu.cyclesToEvent());
+    }
+
 
     public static class Builder {
         private File file;
@@ -203,6 +348,13 @@ public class NesConsole {
         private NesConsoleHook hook;
         private AudioSampleRate sampleRate;
         private Class<? extends Player> player;
+        private SyncMode syncMode;
+        private RenderMode renderMode;
+        private FrameFormat frameFormat;
+        private boolean frameSkip;
+        private Boolean idleSkip;
+        private PaceMode paceMode;
+        private AudioMode audioMode;
 
         public Builder buffer(byte[] buffer) {
             this.buffer = buffer;
@@ -234,6 +386,50 @@ public class NesConsole {
             return this;
         }
 
+        /**
+         * APU/PPU synchronization mode, default {@link SyncMode#LOCKSTEP}
+         */
+        public Builder syncMode(SyncMode syncMode) {
+            this.syncMode = syncMode;
+            return this;
+        }
+
+        public Builder renderMode(RenderMode renderMode) {
+            this.renderMode = renderMode;
+            return this;
+        }
+
+        public Builder frameFormat(FrameFormat frameFormat) {
+            this.frameFormat = frameFormat;
+            return this;
+        }
+
+        /**
+         * Enable adaptive frame skip, when host can't keep tv fps pixel composition of some frames is skipped
+         */
+        public Builder frameSkip(boolean frameSkip) {
+            this.frameSkip = frameSkip;
+            return this;
+        }
+
+        /**
+         * Skip idle polling loop in {@link SyncMode#CATCH_UP} mode, default {@code true}
+         */
+        public Builder idleSkip(boolean idleSkip) {
+            this.idleSkip = idleSkip;
+            return this;
+        }
+
+        public Builder paceMode(PaceMode paceMode) {
+            this.paceMode = paceMode;
+            return this;
+        }
+
+        public Builder audioMode(AudioMode audioMode) {
+            this.audioMode = audioMode;
+            return this;
+        }
+
 
         public NesConsole build() {
             return new NesConsole(this);
@@ -1,10 +1,11 @@
 package cn.navclub.nes4j.bin.apu;
 
 import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.config.AudioMode;
 import cn.navclub.nes4j.bin.config.AudioSampleRate;
 import cn.navclub.nes4j.bin.core.Component;
+import cn.navclub.nes4j.bin.core.Scheduler;
 import cn.navclub.nes4j.bin.apu.impl.*;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
 import lombok.Getter;
 
 import java.util.Objects;
@@ -62,48 +63,67 @@ import static cn.navclub.nes4j.bin.util.BinUtil.int8;
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public class APU implements Component {
-    private static final float[] TND_TABLE;
-    private static final float[] PULSE_TABLE;
-
-    static {
-        TND_TABLE = new float[203];
-        PULSE_TABLE = new float[31];
-
-        for (int i = 0; i < 203; i++) {
-            if (i < PULSE_TABLE.length) {
-                PULSE_TABLE[i] = (float) (95.52 / (8128.0 / i + 100));
-            }
-            TND_TABLE[i] = (float) (163.67 / (24329.0 / i + 100));
-        }
-    }
-
     private final DMChannel dmc;
+    @Getter
     private final Player player;
     @Getter
     private final NesConsole console;
-    private final NoiseChannel noise;
-    private final PulseChannel pulse1;
-    private final PulseChannel pulse2;
-    private final TriangleChannel triangle;
+    private final Scheduler scheduler;
     private final FrameCounter frameCounter;
     @Getter
     private final AudioSampleRate sampleRate;
+    //Waveform channels synthesizer, in THREAD mode only used as length counter model
+    private final Synthesizer synthesizer;
+    //Audio thread synthesizer, null unless THREAD mode
+    private final AsyncSynthesizer async;
+    //Cpu cycles per output block(one frame)
+    private final int blockCycles;
+    private int dmcOutput;
+    //Cpu cycle which current output block end
+    private long blockEnd;
 
-    public APU(AudioSampleRate sampleRate, NesConsole console) {
+    public APU(AudioSampleRate sampleRate, AudioMode mode, NesConsole console) {
         this.console = console;
-        this.dmc = new DMChannel(this);
-        this.noise = new NoiseChannel(this);
-        this.triangle = new TriangleChannel(this);
-
-        this.pulse1 = new PulseChannel(this, false);
-        this.pulse2 = new PulseChannel(this, true);
+        this.scheduler = console.getScheduler();
+        this.dmc = new DMChannel(this, this::dmcOutput);
         this.frameCounter = new FrameCounter(this, this::frameSequence);
         this.sampleRate = Objects.requireNonNullElse(sampleRate, AudioSampleRate.HZ96000);
         this.player = Player.newInstance(console.getPlayer(), this.sampleRate.sample);
+        if (mode == AudioMode.THREAD) {
+            this.synthesizer = new Synthesizer(this, null);
+            this.async = new AsyncSynthesizer(this, this.player);
+        } else {
+            this.synthesizer = new Synthesizer(this, this.player);
+            this.async = null;
+        }
+        this.blockCycles = (int) (this.synthesizer.getClockRate() / console.TVFps());
     }
 
     @Override
     public void write(int address, byte b) {
+        var cycle = this.scheduler.getCycles();
+        //DMC is run lazily, bring it up to date before its state change
+        if ((address >= 0x4010 && address <= 0x4013) || address == 0x4015) {
+            this.dmc.run(cycle);
+        }
+        //0x4010-0x4013 DMC channel
+        if (address >= 0x4010 && address <= 0x4013) {
+            this.dmc.write(address, b);
+            this.dmc.schedule();
+        }
+        //Update frame counter
+        else if (address == 0x4017) {
+            this.frameCounter.write(address, b);
+        }
+        //Square, triangle and noise channel
+        else {
+            if (this.async == null) {
+                this.synthesizer.write(cycle, address, b);
+            } else {
+                this.synthesizer.apply(address, b);
+                this.async.write(cycle, address, b);
+            }
+        }
         //
         // When $4015 is written to, the channels' length counter enable flags are set,
         // the DMC is possibly started or stopped, and the DMC's IRQ occurred flag is
@@ -116,12 +136,6 @@ public class APU implements Component {
         // is set to 0.
         //
         if (address == 0x4015) {
-
-            this.pulse1.setEnable((b & 0x01) == 0x01);
-            this.pulse2.setEnable((b & 0x02) == 0x02);
-            this.triangle.setEnable((b & 0x04) == 0x04);
-            this.noise.setEnable((b & 0x08) == 0x08);
-
             var enable = (b & 0x10) == 0x10;
             //
             // If the DMC bit is clear, the DMC bytes remaining will be set to 0 and the DMC will
@@ -141,31 +155,10 @@ public class APU implements Component {
             this.dmc.setEnable(enable);
             //Writing to this register clears the DMC interrupt flag.
             this.dmc.setIRQFlag(false);
+            this.dmc.schedule();
         }
-        //0x4000-0x4003 Square Channel1
-        else if (address >= 0x4000 && address <= 0x4003) {
-            this.pulse1.write(address, b);
-        }
-        //0x4004-0x4007  Square Channel2
-        else if (address >= 0x4004 && address <= 0x4007) {
-            this.pulse2.write(address, b);
-        }
-        //0x4008-0x400b Triangle channel
-        else if (address >= 0x4008 && address <= 0x400b) {
-            this.triangle.write(address, b);
-        }
-        //0x400c-0x400f Noise channel
-        else if (address >= 0x400c && address <= 0x400f) {
-            this.noise.write(address, b);
-        }
-        //0x4010-0x4013 DMC channel
-        else if (address >= 0x4010 && address <= 0x4013) {
-            this.dmc.write(address, b);
-        }
-        //Update frame counter
-        else if (address == 0x4017) {
-            this.frameCounter.write(address, b);
-        }
+        //DMC output level may be loaded by $4011
+        this.dmcOutput(this.dmc.output());
     }
 
     @Override
@@ -190,10 +183,7 @@ public class APU implements Component {
         var value = 0;
 
         value |= this.dmc.readState();
-        value |= this.noise.readState();
-        value |= this.pulse1.readState();
-        value |= this.pulse2.readState();
-        value |= this.triangle.readState();
+        value |= this.synthesizer.readState();
         value |= this.dmc.isIRQFlag() ? 1 << 7 : 0;
         value |= this.frameCounter.isInterrupt() ? 1 << 6 : 0;
 
@@ -203,113 +193,69 @@ public class APU implements Component {
         return int8(value);
     }
 
-    private long cycle;
-
     @Override
     public void tick() {
-        this.cycle++;
-
-        if (this.cycle % 2 == 0) {
-            this.pulse1.tick();
-            this.pulse2.tick();
-            this.noise.tick();
-        }
-        this.dmc.tick();
-        this.triangle.tick();
-        this.frameCounter.tick();
-        if ((this.cycle / 2) % sampleRate.value == 0) {
-            var output = this.lookupSample();
-            if (this.player != null && !this.console.isMute()) {
-                this.player.output(output);
+        var cycle = this.scheduler.getCycles();
+        //Frame counter step, DMC output cycle end and other due events
+        this.scheduler.dispatch();
+        if (cycle >= this.blockEnd) {
+            if (this.async == null) {
+                this.synthesizer.endBlock(cycle);
+            } else {
+                this.async.endBlock(cycle);
             }
-        }
-
-        // At any time, if the interrupt flag is set, the CPU's IRQ line is continuously asserted
-        // until the interrupt flag is cleared. The processor will continue on from where it was stalled.
-        if (this.dmc.isIRQFlag()) {
-            this.fireIRQ();
+            this.blockEnd = cycle + this.blockCycles;
         }
     }
 
     /**
-     * <p>
-     * <b>Lookup Table</b>
-     * </p>
-     * <p>
-     * The <a href="https://www.nesdev.org/wiki/APU_Mixe">APU mixer</a> formulas can be efficiently implemented using two lookup tables: a
-     * 31-entry table for the two pulse channels and a 203-entry table for the remaining channels
-     * (due to the approximation of tnd_out, the numerators are adjusted slightly to preserve the
-     * normalized output range).
-     * </p>
-     * <pre>
-     *     output = pulse_out + tnd_out
-     *
-     *     pulse_table [n] = 95.52 / (8128.0 / n + 100)
-     *
-     *     pulse_out = pulse_table [pulse1 + pulse2]
-     * </pre>
-     * <p>The tnd_out table is approximated (within 4%) by using a base unit close to the DMC's DAC.</p>
-     * <pre>
-     *     tnd_table [n] = 163.67 / (24329.0 / n + 100)
-     *
-     *     tnd_out = tnd_table [3 * triangle + 2 * noise + dmc]
-     * </pre>
+     * DMC output level may changed at current cycle
      */
-    private byte lookupSample() {
-        var d0 = this.dmc.output();
-        var n0 = this.noise.output();
-        var p1 = this.pulse1.output();
-        var p2 = this.pulse2.output();
-        var t0 = this.triangle.output();
-
-        var seqOut = PULSE_TABLE[p2 + p1];
-        var tndOut = TND_TABLE[3 * t0 + 2 * n0 + d0];
-        var sample = tndOut + seqOut;
-        return int8(Math.round(sample * 0xff));
-    }
-
-
-    public void fireIRQ() {
-        this.console.hardwareInterrupt(CPUInterrupt.IRQ);
+    private void dmcOutput(int output) {
+        if (output == this.dmcOutput) {
+            return;
+        }
+        var cycle = this.scheduler.getCycles();
+        this.dmcOutput = output;
+        if (this.async == null) {
+            this.synthesizer.dmc(cycle, output);
+        } else {
+            this.async.dmc(cycle, output);
+        }
     }
 
     @Override
     public void stop() {
+        if (this.async != null) {
+            this.async.stop();
+        }
         if (this.player != null) {
             this.player.stop();
         }
     }
 
     private void frameSequence(int index) {
-        //
-        // Length counters & sweep units
-        // (Half frame)
-        //
-        if (index == -1 || (index + 1) % 2 == 0) {
-            this.pulse1.lengthTick();
-            this.pulse2.lengthTick();
-            this.noise.lengthTick();
-            this.triangle.lengthTick();
+        var cycle = this.scheduler.getCycles();
+        if (this.async == null) {
+            this.synthesizer.frameSequence(cycle, index);
+        } else {
+            this.synthesizer.clockFrame(index);
+            this.async.frameSequence(cycle, index);
         }
-        //
-        // Envelopes & triangle's linear counter
-        // (Quarter frame)
-        //
-        this.noise.getEnvelope().tick();
-        this.pulse1.getEnvelope().tick();
-        this.pulse2.getEnvelope().tick();
-        this.triangle.getLinearCounter().tick();
     }
 
     @Override
     public void reset() {
-        this.cycle = 0;
+        var cycle = this.scheduler.getCycles();
         this.dmc.reset();
-        this.noise.reset();
-        this.pulse1.reset();
-        this.pulse2.reset();
-        this.player.reset();
-        this.triangle.reset();
+        this.dmcOutput = 0;
+        this.synthesizer.reset(cycle);
+        if (this.async == null) {
+            this.player.reset();
+        } else {
+            this.async.reset(cycle);
+        }
         this.frameCounter.reset();
+        this.blockEnd = cycle + this.blockCycles;
     }
 }
@@ -0,0 +1,139 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.logging.LoggerDelegate;
+import cn.navclub.nes4j.bin.logging.LoggerFactory;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Run {@link Synthesizer} on a separate audio thread. Emulation thread append register write, frame counter
+ * clock, DMC output change and block end with cycle stamp to a single producer single consumer lock free log,
+ * audio thread replay log in order so output is same as synchronous synthesis.
+ * </p>
+ * <p>
+ * Each log entry is two long: cycle stamp and {@code address << 8 | value}, address out of cpu address space is
+ * used for event other than register write. Entry can't be dropped, when log is full emulation thread wait audio
+ * thread.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class AsyncSynthesizer {
+    private static final int FRAME = 0x10000;
+    private static final int DMC = 0x10001;
+    private static final int BLOCK = 0x10002;
+    private static final int RESET = 0x10003;
+    //Entry capacity, power of two
+    private static final int CAPACITY = 1 << 16;
+
+    private static final LoggerDelegate log = LoggerFactory.logger(AsyncSynthesizer.class);
+
+    private final Player player;
+    private final Thread thread;
+    private final Synthesizer synthesizer;
+    private final long[] entries;
+    //Total entry count appended by emulation thread
+    private volatile long head;
+    //Total entry count replayed by audio thread
+    private volatile long tail;
+    private volatile boolean stop;
+
+    public AsyncSynthesizer(APU apu, Player player) {
+        this(new Synthesizer(apu, player), player);
+    }
+
+    /**
+     * @param synthesizer Synthesizer replay log on audio thread, its player must be {@code player}
+     */
+    AsyncSynthesizer(Synthesizer synthesizer, Player player) {
+        this.player = player;
+        this.entries = new long[CAPACITY * 2];
+        this.synthesizer = synthesizer;
+        this.thread = new Thread(this::exec, "apu");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public void write(long cycle, int address, byte b) {
+        this.append(cycle, address << 8 | (b & 0xff));
+    }
+
+    public void frameSequence(long cycle, int index) {
+        this.append(cycle, FRAME << 8 | (index & 0xff));
+    }
+
+    public void dmc(long cycle, int output) {
+        this.append(cycle, DMC << 8 | output);
+    }
+
+    /**
+     * Block end, audio thread is woken to replay log and output samples
+     */
+    public void endBlock(long cycle) {
+        this.append(cycle, BLOCK << 8);
+        LockSupport.unpark(this.thread);
+    }
+
+    public void reset(long cycle) {
+        this.append(cycle, RESET << 8);
+    }
+
+    private void append(long cycle, long payload) {
+        var head = this.head;
+        while (head - this.tail >= CAPACITY) {
+            if (this.stop) {
+                return;
+            }
+            LockSupport.unpark(this.thread);
+            Thread.onSpinWait();
+        }
+        var index = (int) (head & (CAPACITY - 1)) << 1;
+        this.entries[index] = cycle;
+        this.entries[index + 1] = payload;
+        this.head = head + 1;
+    }
+
+    private void exec() {
+        while (!this.stop) {
+            var tail = this.tail;
+            var head = this.head;
+            if (tail == head) {
+                LockSupport.park();
+                continue;
+            }
+            for (; tail < head; tail++) {
+                var index = (int) (tail & (CAPACITY - 1)) << 1;
+                this.replay(this.entries[index], (int) this.entries[index + 1]);
+            }
+            this.tail = tail;
+        }
+    }
+
+    private void replay(long cycle, int payload) {
+        var address = payload >>> 8;
+        var value = payload & 0xff;
+        switch (address) {
+            case FRAME -> this.synthesizer.frameSequence(cycle, (byte) value);
+            case DMC -> this.synthesizer.dmc(cycle, value);
+            case BLOCK -> this.synthesizer.endBlock(cycle);
+            case RESET -> {
+                this.synthesizer.reset(cycle);
+                if (this.player != null) {
+                    this.player.reset();
+                }
+            }
+            default -> this.synthesizer.write(cycle, address, (byte) value);
+        }
+    }
+
+    public void stop() {
+        this.stop = true;
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join(1000);
+        } catch (InterruptedException e) {
+            log.warning("Wait audio thread stop interrupted.");
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package cn.navclub.nes4j.bin.apu;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Band-limited step synthesis buffer(blip buffer). Instead of sampling mixer output every clock, amplitude change
+ * is added as a delta at the clock it happen, delta is spread to nearby samples with a windowed sinc step kernel,
+ * 16 bit signed samples are produced by integrating buffer when read. Output is free of aliasing caused by point sampling square
+ * wave and cost only depend on count of amplitude change.
+ * </p>
+ * <p>
+ * Kernel is centered {@link #HALF_WIDTH} samples after delta position, so sample before read time is never changed
+ * by later delta.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class BlipBuffer {
+    private static final int PHASE_BITS = 5;
+    private static final int PHASES = 1 << PHASE_BITS;
+    private static final int HALF_WIDTH = 8;
+    private static final int WIDTH = HALF_WIDTH * 2;
+    //Kernel phase sum, leave headroom so integrator of 16 bit amplitude doesn't overflow
+    private static final int DELTA_BITS = 14;
+    //Fraction bits of sample position
+    private static final int FRAC_BITS = 32;
+    //Cutoff frequency relative to nyquist frequency
+    private static final double CUTOFF = 0.9;
+    private static final int[][] KERNEL;
+
+    static {
+        KERNEL = new int[PHASES][WIDTH];
+        for (var phase = 0; phase < PHASES; phase++) {
+            var taps = new double[WIDTH];
+            var sum = 0.0;
+            for (var i = 0; i < WIDTH; i++) {
+                //Distance from step to sample
+                var x = i - (HALF_WIDTH - 1) - (double) phase / PHASES;
+                var w = Math.PI * x / HALF_WIDTH;
+                var window = 0.42 + 0.5 * Math.cos(w) + 0.08 * Math.cos(2 * w);
+                var sinc = x == 0 ? 1.0 : Math.sin(Math.PI * CUTOFF * x) / (Math.PI * CUTOFF * x);
+                taps[i] = sinc * window;
+                sum += taps[i];
+            }
+            //Each phase sum must be exactly 1 << DELTA_BITS, otherwise integrator drift
+            var total = 0;
+            for (var i = 0; i < WIDTH; i++) {
+                KERNEL[phase][i] = (int) Math.round(taps[i] / sum * (1 << DELTA_BITS));
+                total += KERNEL[phase][i];
+            }
+            KERNEL[phase][HALF_WIDTH - 1] += (1 << DELTA_BITS) - total;
+        }
+    }
+
+    private final int[] buffer;
+    //Sample per clock << FRAC_BITS
+    private final long factor;
+    //Clock of first sample in buffer
+    private long base;
+    //Fraction sample position of base clock
+    private long offset;
+    private int integrator;
+
+    /**
+     * @param clockRate  Input clock rate(cpu clock)
+     * @param sampleRate Output sample rate
+     * @param capacity   Max samples between two read
+     */
+    public BlipBuffer(long clockRate, int sampleRate, int capacity) {
+        this.factor = Math.round((double) sampleRate * (1L << FRAC_BITS) / clockRate);
+        this.buffer = new int[capacity + WIDTH + 1];
+    }
+
+    /**
+     * Add amplitude change at target clock
+     *
+     * @param time  Absolute clock, must not before last read clock
+     * @param delta Amplitude change, range of amplitude is 0-0xffff
+     */
+    public void addDelta(long time, int delta) {
+        var fixed = (time - this.base) * this.factor + this.offset;
+        var index = (int) (fixed >>> FRAC_BITS);
+        var kernel = KERNEL[(int) (fixed >>> (FRAC_BITS - PHASE_BITS)) & (PHASES - 1)];
+        for (var i = 0; i < WIDTH; i++) {
+            this.buffer[index + i] += kernel[i] * delta;
+        }
+    }
+
+    /**
+     * Read all samples before target clock as 16 bit signed pcm
+     *
+     * @param time Absolute clock, delta after it may still be added
+     * @param out  Output samples
+     * @return Sample count
+     */
+    public int read(long time, short[] out) {
+        var fixed = (time - this.base) * this.factor + this.offset;
+        var count = (int) Math.min(fixed >>> FRAC_BITS, out.length);
+        var integrator = this.integrator;
+        for (var i = 0; i < count; i++) {
+            integrator += this.buffer[i];
+            var value = ((integrator + (1 << (DELTA_BITS - 1))) >> DELTA_BITS) + Short.MIN_VALUE;
+            out[i] = (short) Math.min(Math.max(value, Short.MIN_VALUE), Short.MAX_VALUE);
+        }
+        this.integrator = integrator;
+        //Kernel tail of delta near read clock belong to next samples
+        System.arraycopy(this.buffer, count, this.buffer, 0, WIDTH);
+        Arrays.fill(this.buffer, WIDTH, WIDTH + count, 0);
+        this.base = time;
+        this.offset = fixed - ((long) count << FRAC_BITS);
+        return count;
+    }
+
+    /**
+     * Clear buffer and restart from target clock
+     */
+    public void clear(long time) {
+        Arrays.fill(this.buffer, 0);
+        this.base = time;
+        this.offset = 0;
+        this.integrator = 0;
+    }
+}
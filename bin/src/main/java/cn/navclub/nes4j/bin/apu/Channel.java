@@ -25,10 +25,15 @@ public abstract class Channel<T extends Sequencer> implements Component {
     protected T sequencer;
     @Getter
     protected boolean enable;
+    //Cpu cycles per timer tick, pulse and noise timer is clocked every second cpu cycle
+    protected int rate;
+    //Cpu cycle which timer was ticked to
+    private long time;
 
 
     public Channel(final APU apu, T sequencer) {
         this.apu = apu;
+        this.rate = 2;
         this.enable = false;
         this.sequencer = sequencer;
         this.lengthCounter = new LengthCounter();
@@ -57,6 +62,54 @@ public abstract class Channel<T extends Sequencer> implements Component {
         this.timer.tick();
     }
 
+    /**
+     * Cpu cycle which timer clock sequencer next time, waveform output may only change at that cycle
+     *
+     * @return If timer never clock sequencer return {@link Long#MAX_VALUE}
+     */
+    public long nextClock() {
+        if (this.mute()) {
+            return Long.MAX_VALUE;
+        }
+        var ticks = this.timer.ticksToClock();
+        if (ticks == Integer.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return (this.time / this.rate + ticks) * this.rate;
+    }
+
+    /**
+     * Tick timer from last run cycle to target cycle, timer skip directly to next clock instead of tick one by one
+     *
+     * @param cycle Target cpu cycle
+     */
+    public void run(long cycle) {
+        var ticks = cycle / this.rate - this.time / this.rate;
+        this.time = cycle;
+        var count = this.timer.ticksToClock();
+        if (ticks < count) {
+            this.timer.skip((int) ticks);
+            return;
+        }
+        this.timer.skip(count - 1);
+        this.timer.tick();
+        ticks -= count;
+        //After clock timer reload, following clock happen every whole period
+        count = this.timer.ticksToClock();
+        if (ticks >= count) {
+            this.timer.skipPeriods((int) (ticks / count));
+            ticks %= count;
+        }
+        this.timer.skip((int) ticks);
+    }
+
+    /**
+     * Whether channel output can't be changed by timer clock sequencer
+     */
+    protected boolean mute() {
+        return false;
+    }
+
     public void setEnable(boolean enable) {
         this.enable = enable;
         //
@@ -128,4 +181,13 @@ public abstract class Channel<T extends Sequencer> implements Component {
             this.sequencer.reset();
         }
     }
+
+    /**
+     * Timer tick is counted from target cycle, called after reset
+     *
+     * @param cycle Current cpu cycle
+     */
+    public void start(long cycle) {
+        this.time = cycle;
+    }
 }
@@ -1,6 +1,9 @@
 package cn.navclub.nes4j.bin.apu;
 
+import cn.navclub.nes4j.bin.config.InterruptLine;
+import cn.navclub.nes4j.bin.config.TimedEvent;
 import cn.navclub.nes4j.bin.core.Component;
+import cn.navclub.nes4j.bin.core.Scheduler;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -22,6 +25,9 @@ import java.util.function.Consumer;
  * Once the last step has executed, the count resets to 0 on the next APU cycle.
  * </p>
  * <p>
+ * The divider is not ticked, the cycle which next step or write delay elapse is scheduled in {@link Scheduler}
+ * as {@link TimedEvent#FRAME_COUNTER} event.
+ * </p>
  *
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
@@ -34,29 +40,32 @@ public class FrameCounter implements Component {
      * (which also returns its old status) or by setting the interrupt inhibit flag.
      * </p>
      */
-    @Setter
     @Getter
     private boolean interrupt;
     //IRQ is disable
     private boolean inhibit;
     @Setter
     private int mode;
-    //2*CPU cycle=APU cycle
-    private int cycle;
+    //Master clock cycle which divider count is 0
+    private long base;
     private int index;
-    private int delay;
+    //Master clock cycle which write delay elapse
+    private long delayAt;
     private final APU apu;
+    private final Scheduler scheduler;
     private final int[][] sequencers;
     private final Consumer<Integer> consumer;
 
     public FrameCounter(APU apu, Consumer<Integer> consumer) {
-        this.reset();
         this.apu = apu;
         this.consumer = consumer;
         this.sequencers = new int[][]{
                 {7457, 7456, 7458, 7458},
                 {7457, 7456, 7458, 14910}
         };
+        this.scheduler = apu.getConsole().getScheduler();
+        this.scheduler.register(TimedEvent.FRAME_COUNTER, this::tick);
+        this.reset();
     }
 
     /**
@@ -101,52 +110,81 @@ public class FrameCounter implements Component {
         //Interrupt inhibit flag. If set, the frame interrupt flag is cleared, otherwise it is unaffected.
         this.inhibit = (b & 0x40) == 0x40;
         if (this.inhibit) {
-            this.interrupt = false;
+            this.setInterrupt(false);
         }
         //
         // If the write occurs during an APU cycle, the effects occur 3 CPU cycles after the $4017 write cycle,
         // and if the write occurs between APU cycles, the effects occurs 4 CPU cycles after the write cycle.
         //
-        this.delay = (this.cycle % 2 == 0) ? 3 : 4;
+        var now = this.scheduler.getCycles();
+        var delay = ((now - this.base) % 2 == 0) ? 3 : 4;
+        this.delayAt = now + delay;
+        this.schedule();
     }
 
+    /**
+     * Call by {@link Scheduler} when next step or write delay due
+     */
     @Override
     public void tick() {
-        this.cycle++;
-        if (delay > 0 && (--this.delay) == 0) {
-            this.cycle = 0;
+        var now = this.scheduler.getCycles();
+        if (this.delayAt == now) {
+            this.base = now;
+            this.delayAt = -1;
         }
         var value = this.sequencers[this.mode][this.index];
-        if (this.cycle == value) {
+        if (now - this.base == value) {
             //Touch current step
             this.consumer.accept(this.index);
             //Next step
             this.index = (this.index + 1) % 4;
             //Once the last step has executed, the count resets to 0 on the next APU cycle.
             if (this.index == 3) {
-                this.cycle = -2;
+                this.base = now + 2;
             } else {
-                this.cycle = 0;
+                this.base = now;
             }
             //
             // At any time if the interrupt flag is set and the IRQ disable is clear, the
             // CPU's IRQ line is asserted.
             //
             if (this.index == 3 && this.mode == 0 && !this.inhibit) {
-                this.interrupt = true;
-                this.apu.fireIRQ();
+                this.setInterrupt(true);
             }
 
         }
+        this.schedule();
+    }
+
+    public void setInterrupt(boolean interrupt) {
+        this.interrupt = interrupt;
+        this.apu.getConsole().hardwareInterrupt(InterruptLine.FRAME_COUNTER, interrupt);
+    }
+
+    /**
+     * Schedule next sequencer step, if divider count already passed it(mode changed) only pending write delay can
+     * reset the divider.
+     */
+    private void schedule() {
+        var now = this.scheduler.getCycles();
+        var timestamp = this.base + this.sequencers[this.mode][this.index];
+        if (timestamp <= now) {
+            timestamp = Long.MAX_VALUE;
+        }
+        if (this.delayAt > now) {
+            timestamp = Math.min(timestamp, this.delayAt);
+        }
+        this.scheduler.schedule(TimedEvent.FRAME_COUNTER, timestamp);
     }
 
     @Override
     public void reset() {
         this.mode = 0;
-        this.delay = 0;
-        this.cycle = 0;
         this.index = 1;
+        this.delayAt = -1;
         this.inhibit = false;
-        this.interrupt = false;
+        this.setInterrupt(false);
+        this.base = this.scheduler.getCycles();
+        this.schedule();
     }
 }
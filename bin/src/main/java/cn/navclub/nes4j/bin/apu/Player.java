@@ -7,10 +7,33 @@ public interface Player {
     /**
      * When apu component product a sample will call this method
      *
-     * @param sample Audio sample
+     * @param sample 8 bit unsigned audio sample
      */
     void output(byte sample);
 
+    /**
+     * When apu component product a block of samples(one frame) will call this method, default implementation
+     * convert sample to 8 bit unsigned and call {@link #output(byte)} one by one.
+     *
+     * @param samples 16 bit signed mono samples
+     * @param offset  First sample offset
+     * @param length  Sample count
+     */
+    default void output(short[] samples, int offset, int length) {
+        for (var i = offset; i < offset + length; i++) {
+            this.output((byte) ((samples[i] >> 8) + 0x80));
+        }
+    }
+
+    /**
+     * Buffered audio which wait play, used by {@link cn.navclub.nes4j.bin.config.PaceMode#AUDIO} frame pacing
+     *
+     * @return Latency in milliseconds, {@code -1} if unknown
+     */
+    default int getLatency() {
+        return -1;
+    }
+
     /**
      * When game was close will call this method release resource
      */
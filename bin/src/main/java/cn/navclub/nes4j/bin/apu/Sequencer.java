@@ -24,4 +24,15 @@ public interface Sequencer extends CycleDriver {
      * Reset Sequencer
      */
     void reset();
+
+    /**
+     * Clock sequencer multiple times
+     *
+     * @param steps Clock count
+     */
+    default void skip(int steps) {
+        for (var i = 0; i < steps; i++) {
+            this.tick();
+        }
+    }
 }
@@ -44,7 +44,12 @@ public class SweepUnit implements CycleDriver {
             // greater than $7FF, the channel's DAC receives 0 and the sweep unit doesn't
             // change the channel's period.Otherwise
             //
-            if (!this.silence && this.enable && this.shift > 0) {
+            // Result is computed from current period and sweep register, result of last tick may be stale after
+            // register write and even negative.
+            //
+            var period = this.channel.timer.period;
+            var result = this.calculate(period);
+            if (period >= 8 && result <= 0x7ff && this.enable && this.shift > 0) {
                 this.channel.timer.setPeriod(result);
             }
         });
@@ -0,0 +1,261 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.apu.impl.NoiseChannel;
+import cn.navclub.nes4j.bin.apu.impl.PulseChannel;
+import cn.navclub.nes4j.bin.apu.impl.TriangleChannel;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Waveform channels(square 1, square 2, triangle, noise) and mixer. Channels are run lazily, every timer clock
+ * which may change channel output is executed in cycle order and mixer amplitude change is added to
+ * {@link BlipBuffer} at that cycle. DMC is not part of synthesizer because its memory reader stall cpu and raise
+ * irq, its output level is given by {@link APU}.
+ * </p>
+ * <p>
+ * All method with cycle parameter must be called in cycle order. Without call these method synthesizer is only a
+ * model of length counters used by status register read.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class Synthesizer {
+    //NTSC cpu clock rate
+    private static final int CLOCK_RATE = 1789773;
+    private static final int[] TND_TABLE;
+    private static final int[] PULSE_TABLE;
+
+    static {
+        TND_TABLE = new int[203];
+        PULSE_TABLE = new int[31];
+
+        for (int i = 0; i < 203; i++) {
+            if (i < PULSE_TABLE.length) {
+                PULSE_TABLE[i] = amplitude(95.52 / (8128.0 / i + 100));
+            }
+            TND_TABLE[i] = amplitude(163.67 / (24329.0 / i + 100));
+        }
+    }
+
+    private final APU apu;
+    private final Player player;
+    private final NoiseChannel noise;
+    private final PulseChannel pulse1;
+    private final PulseChannel pulse2;
+    private final TriangleChannel triangle;
+    private final BlipBuffer blip;
+    private final short[] samples;
+    //Waveform channels which output only change when timer clock sequencer
+    private final Channel<?>[] waves;
+    //Cpu cycles per second
+    @Getter
+    private final long clockRate;
+    //Mixer amplitude last added to blip buffer
+    private int amplitude;
+    private int dmcOutput;
+
+    public Synthesizer(APU apu, Player player) {
+        this.apu = apu;
+        this.player = player;
+        this.noise = new NoiseChannel(apu);
+        this.triangle = new TriangleChannel(apu);
+        this.pulse1 = new PulseChannel(apu, false);
+        this.pulse2 = new PulseChannel(apu, true);
+        this.waves = new Channel<?>[]{this.pulse1, this.pulse2, this.triangle, this.noise};
+
+        var console = apu.getConsole();
+        var sample = apu.getSampleRate().sample;
+        //Cpu always run NTSC timing, emulate speed is paced by tv frame rate
+        this.clockRate = (long) CLOCK_RATE * console.TVFps() / 60;
+        //Two frames of samples
+        this.samples = new short[sample * 2 / console.TVFps()];
+        this.blip = new BlipBuffer(this.clockRate, sample, this.samples.length);
+    }
+
+    /**
+     * Apply register write at target cycle
+     */
+    public void write(long cycle, int address, byte b) {
+        this.run(cycle);
+        this.apply(address, b);
+        this.update(cycle);
+    }
+
+    /**
+     * Apply frame counter clock at target cycle
+     */
+    public void frameSequence(long cycle, int index) {
+        this.run(cycle);
+        this.clockFrame(index);
+        this.update(cycle);
+    }
+
+    /**
+     * DMC output level changed at target cycle
+     */
+    public void dmc(long cycle, int output) {
+        this.run(cycle);
+        this.dmcOutput = output;
+        this.update(cycle);
+    }
+
+    /**
+     * Output all samples before target cycle to player
+     */
+    public void endBlock(long cycle) {
+        this.run(cycle);
+        var count = this.blip.read(cycle, this.samples);
+        if (this.player != null && !this.apu.getConsole().isMute()) {
+            this.player.output(this.samples, 0, count);
+        }
+    }
+
+    /**
+     * Apply square, triangle, noise register and length counter enable flags of $4015
+     */
+    public void apply(int address, byte b) {
+        if (address == 0x4015) {
+            this.pulse1.setEnable((b & 0x01) == 0x01);
+            this.pulse2.setEnable((b & 0x02) == 0x02);
+            this.triangle.setEnable((b & 0x04) == 0x04);
+            this.noise.setEnable((b & 0x08) == 0x08);
+        }
+        //0x4000-0x4003 Square Channel1
+        else if (address >= 0x4000 && address <= 0x4003) {
+            this.pulse1.write(address, b);
+        }
+        //0x4004-0x4007  Square Channel2
+        else if (address >= 0x4004 && address <= 0x4007) {
+            this.pulse2.write(address, b);
+        }
+        //0x4008-0x400b Triangle channel
+        else if (address >= 0x4008 && address <= 0x400b) {
+            this.triangle.write(address, b);
+        }
+        //0x400c-0x400f Noise channel
+        else if (address >= 0x400c && address <= 0x400f) {
+            this.noise.write(address, b);
+        }
+    }
+
+    public void clockFrame(int index) {
+        //
+        // Length counters & sweep units
+        // (Half frame)
+        //
+        if (index == -1 || (index + 1) % 2 == 0) {
+            this.pulse1.lengthTick();
+            this.pulse2.lengthTick();
+            this.noise.lengthTick();
+            this.triangle.lengthTick();
+        }
+        //
+        // Envelopes & triangle's linear counter
+        // (Quarter frame)
+        //
+        this.noise.getEnvelope().tick();
+        this.pulse1.getEnvelope().tick();
+        this.pulse2.getEnvelope().tick();
+        this.triangle.getLinearCounter().tick();
+    }
+
+    /**
+     * Length counter status bits of $4015
+     */
+    public int readState() {
+        return this.noise.readState()
+                | this.pulse1.readState()
+                | this.pulse2.readState()
+                | this.triangle.readState();
+    }
+
+    /**
+     * Run waveform channels to target cycle, amplitude change is added to blip buffer at cycle it happen
+     *
+     * @param cycle Target cpu cycle
+     */
+    private void run(long cycle) {
+        while (true) {
+            Channel<?> next = null;
+            var time = cycle;
+            for (var channel : this.waves) {
+                var clock = channel.nextClock();
+                if (clock <= time) {
+                    time = clock;
+                    next = channel;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            next.run(time);
+            this.update(time);
+        }
+        for (var channel : this.waves) {
+            channel.run(cycle);
+        }
+    }
+
+    /**
+     * Add mixer amplitude change at target cycle to blip buffer
+     */
+    private void update(long cycle) {
+        var amplitude = this.lookupSample();
+        if (amplitude != this.amplitude) {
+            this.blip.addDelta(cycle, amplitude - this.amplitude);
+            this.amplitude = amplitude;
+        }
+    }
+
+    /**
+     * <p>
+     * <b>Lookup Table</b>
+     * </p>
+     * <p>
+     * The <a href="https://www.nesdev.org/wiki/APU_Mixe">APU mixer</a> formulas can be efficiently implemented using two lookup tables: a
+     * 31-entry table for the two pulse channels and a 203-entry table for the remaining channels
+     * (due to the approximation of tnd_out, the numerators are adjusted slightly to preserve the
+     * normalized output range).
+     * </p>
+     * <pre>
+     *     output = pulse_out + tnd_out
+     *
+     *     pulse_table [n] = 95.52 / (8128.0 / n + 100)
+     *
+     *     pulse_out = pulse_table [pulse1 + pulse2]
+     * </pre>
+     * <p>The tnd_out table is approximated (within 4%) by using a base unit close to the DMC's DAC.</p>
+     * <pre>
+     *     tnd_table [n] = 163.67 / (24329.0 / n + 100)
+     *
+     *     tnd_out = tnd_table [3 * triangle + 2 * noise + dmc]
+     * </pre>
+     * Table value is scaled to 16 bit amplitude.
+     */
+    private int lookupSample() {
+        var d0 = this.dmcOutput;
+        var n0 = this.noise.output();
+        var p1 = this.pulse1.output();
+        var p2 = this.pulse2.output();
+        var t0 = this.triangle.output();
+
+        return PULSE_TABLE[p2 + p1] + TND_TABLE[3 * t0 + 2 * n0 + d0];
+    }
+
+    private static int amplitude(double value) {
+        return (int) Math.round(value * 0xffff);
+    }
+
+    /**
+     * Reset channels and restart synthesis from target cycle
+     */
+    public void reset(long cycle) {
+        for (var channel : this.waves) {
+            channel.reset();
+            channel.start(cycle);
+        }
+        this.amplitude = 0;
+        this.dmcOutput = 0;
+        this.blip.clear(cycle);
+    }
+}
@@ -40,4 +40,33 @@ public class Timer<T extends Sequencer> implements CycleDriver {
             }
         }
     }
+
+    /**
+     * Count ticks from now until timer clock sequencer
+     *
+     * @return If timer never clock sequencer return {@link Integer#MAX_VALUE}
+     */
+    public int ticksToClock() {
+        return this.counter + 1;
+    }
+
+    /**
+     * Advance timer whole periods, timer state is same as before and sequencer is clocked once per period
+     *
+     * @param periods Period count
+     */
+    public void skipPeriods(int periods) {
+        if (this.sequencer != null) {
+            this.sequencer.skip(periods);
+        }
+    }
+
+    /**
+     * Advance timer multiple ticks without clock sequencer
+     *
+     * @param ticks Tick count, must be less than {@link #ticksToClock()}
+     */
+    public void skip(int ticks) {
+        this.counter -= ticks;
+    }
 }
@@ -3,9 +3,14 @@ package cn.navclub.nes4j.bin.apu.impl;
 import cn.navclub.nes4j.bin.apu.APU;
 import cn.navclub.nes4j.bin.apu.Channel;
 import cn.navclub.nes4j.bin.apu.Sequencer;
+import cn.navclub.nes4j.bin.config.InterruptLine;
+import cn.navclub.nes4j.bin.config.TimedEvent;
+import cn.navclub.nes4j.bin.core.Scheduler;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.function.Consumer;
+
 import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 
 /**
@@ -19,6 +24,11 @@ import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
  *                            v
  * Reader ---> Buffer ---> Shifter ---> Output level ---> (to the mixer)
  * </pre>
+ * <p>
+ * Channel is not ticked every cpu cycle. Output level only change and memory reader only fetch at the end of an
+ * output cycle, that cycle is scheduled in {@link Scheduler} as {@link TimedEvent#DMC} event and channel is run to
+ * it, timer clocks between two events are counted directly.
+ * </p>
  *
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
@@ -80,15 +90,21 @@ public class DMChannel extends Channel<Sequencer> {
     //$4011: delta counter
     private int deltaCounter;
     //$4015: DMC/IRQ status
-    @Setter
     @Getter
     private boolean IRQFlag;
     private boolean silence;
     private int downCounter;
     private PlaybackMode mode;
+    private final Scheduler scheduler;
+    private final Consumer<Integer> consumer;
+    //Cpu cycle which channel was run to
+    private long time;
 
-    public DMChannel(APU apu) {
+    public DMChannel(APU apu, Consumer<Integer> consumer) {
         super(apu, null);
+        this.consumer = consumer;
+        this.scheduler = apu.getConsole().getScheduler();
+        this.scheduler.register(TimedEvent.DMC, this::dispatch);
         this.reset();
     }
 
@@ -120,7 +136,7 @@ public class DMChannel extends Channel<Sequencer> {
             //
             this.frequency = (FREQ_TABLE[c & 0x0f]);
             if (this.mode != PlaybackMode._10) {
-                this.IRQFlag = false;
+                this.setIRQFlag(false);
             }
         }
         //  $4011 - Delta counter load register
@@ -244,12 +260,86 @@ public class DMChannel extends Channel<Sequencer> {
 //            this.sample = (byte) (this.deltaCounter << 1 | this.dacLSB);
             this.sample = (byte) this.deltaCounter;
             if (!this.silence) {
-                this.reader();
                 this.bitCount = 8;
+                this.reader();
+            }
+        }
+    }
+
+    /**
+     * Run channel from last run cycle to target cycle, must be called before register write. Each branch give
+     * same result as {@link #tick()} target cycle count times:
+     * <li>Disabled channel is not ticked.</li>
+     * <li>Output cycle ended and sample buffer is empty, only down counter count.</li>
+     * <li>Silence flag set, down counter count and timer clock do nothing.</li>
+     * <li>Sample playing, timer clocks before end of output cycle are executed directly, the cycle which output cycle
+     * end is ticked.</li>
+     *
+     * @param cycle Target cpu cycle
+     */
+    @Override
+    public void run(long cycle) {
+        while (this.time < cycle) {
+            var ticks = cycle - this.time;
+            if (!this.enable) {
+                this.time = cycle;
+            } else if (this.bitCount == 0 && !this.idle()) {
+                this.tick();
+                this.time++;
+            } else if (this.bitCount == 0 || this.silence) {
+                this.skip(ticks);
+                this.time = cycle;
+            } else {
+                var end = this.downCounter + 1 + (long) (this.bitCount - 1) * (this.frequency + 1);
+                if (ticks < end) {
+                    this.timerClock(this.skip(ticks));
+                    this.time = cycle;
+                } else {
+                    this.timerClock(this.skip(end - 1));
+                    this.tick();
+                    this.time += end;
+                }
             }
         }
     }
 
+    /**
+     * Output cycle ended with empty sample buffer and output level was sent to output unit
+     */
+    private boolean idle() {
+        return this.silence && this.lCounter == 0 && this.sample == this.deltaCounter;
+    }
+
+    /**
+     * Count down counter target ticks
+     *
+     * @return Timer clock count
+     */
+    private long skip(long ticks) {
+        if (ticks <= this.downCounter) {
+            this.downCounter -= (int) ticks;
+            return 0;
+        }
+        ticks -= this.downCounter + 1;
+        this.downCounter = this.frequency - (int) (ticks % (this.frequency + 1));
+        return 1 + ticks / (this.frequency + 1);
+    }
+
+    private void timerClock(long count) {
+        while (count-- > 0) {
+            this.timerClock();
+        }
+    }
+
+    /**
+     * Scheduled output cycle end, notify output level and schedule next one
+     */
+    private void dispatch() {
+        this.run(this.scheduler.getCycles());
+        this.schedule();
+        this.consumer.accept(this.output());
+    }
+
     /**
      * <p>
      * When the timer outputs a clock, the following actions occur in order:
@@ -338,11 +428,41 @@ public class DMChannel extends Channel<Sequencer> {
             if (this.mode == PlaybackMode._X1) {
                 this.loopReader();
             } else if (this.mode == PlaybackMode._10) {
-                this.IRQFlag = true;
+                this.setIRQFlag(true);
+            }
+        }
+    }
+
+    /**
+     * Schedule cycle which next output cycle end(output level change, memory reader fetch next sample byte, stall
+     * CPU and may set IRQ flag), must be called when channel state changed by register write.
+     */
+    public void schedule() {
+        var now = this.scheduler.getCycles();
+        if (!this.enable) {
+            this.scheduler.cancel(TimedEvent.DMC);
+        } else if (this.bitCount == 0) {
+            if (!this.idle()) {
+                this.scheduler.schedule(TimedEvent.DMC, now + 1);
+            } else {
+                this.scheduler.cancel(TimedEvent.DMC);
             }
+        } else if (this.silence) {
+            this.scheduler.cancel(TimedEvent.DMC);
+        } else {
+            this.scheduler.schedule(TimedEvent.DMC, now + this.downCounter + 1 + (long) (this.bitCount - 1) * (this.frequency + 1));
         }
     }
 
+    /**
+     * At any time, if the interrupt flag is set, the CPU's IRQ line is continuously asserted until the interrupt
+     * flag is cleared.
+     */
+    public void setIRQFlag(boolean IRQFlag) {
+        this.IRQFlag = IRQFlag;
+        this.apu.getConsole().hardwareInterrupt(InterruptLine.DMC, IRQFlag);
+    }
+
     /**
      * When a sample is (re)started, the current address is set to the sample address,
      * and bytes remaining is set to the sample length.
@@ -361,9 +481,11 @@ public class DMChannel extends Channel<Sequencer> {
         this.lCounter = 0;
         this.silence = true;
         this.downCounter = 0;
-        this.IRQFlag = false;
+        this.setIRQFlag(false);
         this.currentAddress = 0;
         this.mode = PlaybackMode._00;
+        this.time = this.scheduler.getCycles();
+        this.schedule();
     }
 
     /**
@@ -112,6 +112,11 @@ public class NoiseChannel extends Channel<NoiseSequencer> {
         return this.envelope.getVolume();
     }
 
+    @Override
+    protected boolean mute() {
+        return !this.enable || this.lengthCounter.silence() || this.envelope.getVolume() == 0;
+    }
+
     @Override
     public int readState() {
         return this.lengthCounter.stateVal() << 3;
@@ -105,6 +105,14 @@ public class PulseChannel extends Channel<SeqSequencer> {
         return this.envelope.getVolume();
     }
 
+    @Override
+    protected boolean mute() {
+        return !this.enable
+                || this.lengthCounter.silence()
+                || this.sweepUnit.isSilence()
+                || this.envelope.getVolume() == 0;
+    }
+
     @Override
     public void lengthTick() {
         super.lengthTick();
@@ -33,6 +33,8 @@ public class TriangleChannel extends Channel<TriangleSequencer> {
         this.linearCounter = new LinearCounter();
         this.sequencer = new TriangleSequencer();
         this.timer = new TriangleTimer(this.sequencer, this);
+        //Triangle timer is clocked every cpu cycle
+        this.rate = 1;
     }
 
     @Override
@@ -74,6 +76,11 @@ public class TriangleChannel extends Channel<TriangleSequencer> {
         return sequencer.value();
     }
 
+    @Override
+    protected boolean mute() {
+        return !((TriangleTimer) this.timer).gate();
+    }
+
     @Override
     public int readState() {
         return this.lengthCounter.stateVal() << 2;
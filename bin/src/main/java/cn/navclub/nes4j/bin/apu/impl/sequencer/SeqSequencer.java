@@ -46,6 +46,11 @@ public class SeqSequencer implements Sequencer {
         this.index = (this.index + 1) % 8;
     }
 
+    @Override
+    public void skip(int steps) {
+        this.index = (this.index + steps) % 8;
+    }
+
     @Override
     public int value() {
         return this.sequences[this.duty][this.index];
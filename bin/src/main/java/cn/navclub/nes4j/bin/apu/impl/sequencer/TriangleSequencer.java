@@ -50,6 +50,11 @@ public class TriangleSequencer implements Sequencer {
         this.index = (this.index + 1) % sequencer.length;
     }
 
+    @Override
+    public void skip(int steps) {
+        this.index = (this.index + steps) % sequencer.length;
+    }
+
     @Override
     public void reset() {
         this.index = 0;
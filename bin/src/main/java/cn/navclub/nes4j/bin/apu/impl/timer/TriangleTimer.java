@@ -30,12 +30,50 @@ public class TriangleTimer extends Timer<TriangleSequencer> {
             // have a non-zero count, the sequencer is clocked.
             //
             if (this.counter == 0) {
-                var linearCounter = this.channel.getLinearCounter();
-                var lengthCounter = this.channel.getLengthCounter();
-                if (channel.isEnable() && lengthCounter.getCounter() != 0 && linearCounter.getCounter() != 0) {
+                if (this.gate()) {
                     this.sequencer.tick();
                 }
             }
         }
     }
+
+    /**
+     * When the timer generates a clock and the Length Counter and Linear Counter both
+     * have a non-zero count, the sequencer is clocked.
+     */
+    public boolean gate() {
+        var linearCounter = this.channel.getLinearCounter();
+        var lengthCounter = this.channel.getLengthCounter();
+        return this.channel.isEnable() && lengthCounter.getCounter() != 0 && linearCounter.getCounter() != 0;
+    }
+
+    /**
+     * Counter is reloaded when it is 0 and clock is generated when it count down to 0, so zero period never clock.
+     */
+    @Override
+    public int ticksToClock() {
+        if (this.counter > 0) {
+            return this.counter;
+        }
+        return this.period == 0 ? Integer.MAX_VALUE : this.period + 1;
+    }
+
+    @Override
+    public void skipPeriods(int periods) {
+        if (this.gate()) {
+            this.sequencer.skip(periods);
+        }
+    }
+
+    @Override
+    public void skip(int ticks) {
+        if (ticks == 0) {
+            return;
+        }
+        if (this.counter > 0) {
+            this.counter -= ticks;
+        } else {
+            this.counter = this.period - (ticks - 1);
+        }
+    }
 }
@@ -0,0 +1,18 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * Which thread APU waveform channels are synthesized on
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum AudioMode {
+    /**
+     * Synthesize on emulation thread when APU is ticked
+     */
+    INLINE,
+    /**
+     * Emulation thread only emulate length counters, frame counter and DMC, register write is logged with cycle
+     * stamp and replayed by a separate audio thread which synthesize waveform channels
+     */
+    THREAD
+}
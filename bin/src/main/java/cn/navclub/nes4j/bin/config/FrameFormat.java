@@ -0,0 +1,19 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * PPU frame buffer pixel format
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum FrameFormat {
+    /**
+     * Every pixel is stored as 32 bits argb value
+     */
+    ARGB,
+    /**
+     * Every pixel is stored as 6 bits color index with 3 bits emphasis, converted to argb only when
+     * {@link cn.navclub.nes4j.bin.ppu.Frame#getPixel(int)} or {@link cn.navclub.nes4j.bin.ppu.Frame#copy(int[])}
+     * is called
+     */
+    INDEXED
+}
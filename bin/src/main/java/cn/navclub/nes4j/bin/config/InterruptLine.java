@@ -0,0 +1,26 @@
+package cn.navclub.nes4j.bin.config;
+
+import lombok.Getter;
+
+/**
+ * CPU hardware interrupt input line
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+@Getter
+public enum InterruptLine {
+    //PPU vblank NMI,edge triggered and latched until CPU service it
+    NMI,
+    //APU frame counter IRQ
+    FRAME_COUNTER,
+    //APU DMC IRQ
+    DMC,
+    //Cartridge mapper IRQ
+    MAPPER;
+
+    private final int mask;
+
+    InterruptLine() {
+        this.mask = 1 << this.ordinal();
+    }
+}
@@ -0,0 +1,22 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * Frame pacing strategy, decide how long emulation thread wait after each frame output
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum PaceMode {
+    /**
+     * Keep tv fps by host clock, park until shortly before frame deadline then spin to deadline
+     */
+    WALL_CLOCK,
+    /**
+     * Audio device is master clock, wait until buffered audio of player drop to target latency. Fall back to
+     * {@link #WALL_CLOCK} when player can't report latency
+     */
+    AUDIO,
+    /**
+     * Never wait, emulation run as fast as host can(e.g. fast-forward or benchmark)
+     */
+    UNTHROTTLED
+}
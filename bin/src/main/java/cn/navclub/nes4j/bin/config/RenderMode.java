@@ -0,0 +1,23 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * PPU background and sprite render mode
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum RenderMode {
+    /**
+     * Fetch and output pixel dot by dot, mid-scanline register change take effect on next pixel
+     */
+    DOT,
+    /**
+     * Draw whole visible scanline at dot 256 with scroll and pattern state of that time, much faster but
+     * mid-scanline raster effect is invisible
+     */
+    SCANLINE,
+    /**
+     * Draw frame as {@link #SCANLINE}, switch to {@link #DOT} when PPU register, palette, CHR bank or mirroring
+     * is changed while scanline is rendering, and switch back after a frame without such change
+     */
+    AUTO
+}
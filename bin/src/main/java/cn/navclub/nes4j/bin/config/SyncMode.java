@@ -0,0 +1,18 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * CPU and APU/PPU timing synchronization mode
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum SyncMode {
+    /**
+     * APU and PPU are ticked on every CPU bus cycle, default mode
+     */
+    LOCKSTEP,
+    /**
+     * CPU runs freely and records elapsed cycles, APU and PPU are advanced in bulk when CPU touches their
+     * register, writes mapper register or next predicted interrupt is due.
+     */
+    CATCH_UP
+}
@@ -0,0 +1,22 @@
+package cn.navclub.nes4j.bin.config;
+
+/**
+ * Timed event source registered in {@link cn.navclub.nes4j.bin.core.Scheduler}
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public enum TimedEvent {
+    /**
+     * PPU enter vertical blank and may fire NMI
+     */
+    VBLANK,
+    /**
+     * APU frame counter next sequencer step or $4017 write delay elapse
+     */
+    FRAME_COUNTER,
+    /**
+     * DMC output cycle end, output level change and memory reader fetch next sample byte(stall CPU and may set
+     * IRQ flag)
+     */
+    DMC
+}
@@ -0,0 +1,156 @@
+package cn.navclub.nes4j.bin.core;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.config.PaceMode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Frame pacer, called by game loop at instruction boundary after each frame output and wait until next frame
+ * should start.
+ * {@link PaceMode#WALL_CLOCK} keep a fixed time step deadline, thread park until {@link #SPIN_NANOS} before
+ * deadline and spin the rest because park may oversleep much more than sub-millisecond. When host fall behind
+ * deadline is kept, so short stall is caught up, but lag never exceed {@link #MAX_LAG} frames.
+ * </p>
+ * <p>
+ * Real interval between two frames is measured, average frame time and jitter(average distance to tv frame
+ * time) are exponential moving average of last frames.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class FramePacer {
+    //Spin instead of park when remain time less than it
+    private static final long SPIN_NANOS = 1_000_000;
+    //Max frames host may fall behind, older lag is dropped
+    private static final int MAX_LAG = 3;
+    //Buffered audio AUDIO mode keep
+    private static final int AUDIO_LATENCY = 50;
+    //Weight of new frame in moving average
+    private static final double ALPHA = 1.0 / 16;
+
+    private final NesConsole console;
+    @Getter
+    @Setter
+    private volatile PaceMode mode;
+    //Tv frame time
+    private long unit;
+    //Time which last frame should finish
+    private long deadline;
+    //Time of last frame pace finish
+    private long last;
+    //Frames output in current second
+    private int frames;
+    private long second;
+    @Getter
+    private volatile int fps;
+    /**
+     * Average frame time in nanoseconds
+     */
+    @Getter
+    private volatile long frameTime;
+    /**
+     * Average frame time jitter in nanoseconds
+     */
+    @Getter
+    private volatile long jitter;
+
+    public FramePacer(NesConsole console, PaceMode mode) {
+        this.mode = mode;
+        this.console = console;
+    }
+
+    public void reset() {
+        this.unit = 1000000000 / this.console.TVFps();
+        this.fps = 0;
+        this.last = 0;
+        this.jitter = 0;
+        this.frames = 0;
+        this.second = 0;
+        this.deadline = 0;
+        this.frameTime = this.unit;
+    }
+
+    /**
+     * Wait until next frame should start
+     */
+    public void pace() {
+        var now = System.nanoTime();
+        if (this.deadline == 0) {
+            this.deadline = now;
+            this.second = now;
+        } else {
+            this.deadline += this.unit;
+            switch (this.mode) {
+                case WALL_CLOCK -> this.sleep(now);
+                case AUDIO -> this.audio(now);
+                case UNTHROTTLED -> {
+                }
+            }
+            now = System.nanoTime();
+            //Don't catch up long stall(e.g. debugger break or host suspend)
+            if (now - this.deadline > MAX_LAG * this.unit) {
+                this.deadline = now - MAX_LAG * this.unit;
+            }
+        }
+        this.measure(now);
+    }
+
+    /**
+     * Whether host is more than one frame behind, used by adaptive frame skip
+     */
+    public boolean behind() {
+        return this.mode != PaceMode.UNTHROTTLED
+                && this.deadline != 0
+                && System.nanoTime() - this.deadline >= this.unit;
+    }
+
+    /**
+     * Hybrid park then spin until deadline
+     */
+    private void sleep(long now) {
+        var remain = this.deadline - now;
+        if (remain > SPIN_NANOS) {
+            LockSupport.parkNanos(remain - SPIN_NANOS);
+        }
+        while (System.nanoTime() < this.deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Wait until buffered audio drop to target, wait at most one more frame so emulation never hang when
+     * audio device stop consume sample
+     */
+    private void audio(long now) {
+        var player = this.console.getApu().getPlayer();
+        if (player == null || player.getLatency() < 0) {
+            this.sleep(now);
+            return;
+        }
+        var limit = now + 2 * this.unit;
+        while (player.getLatency() > AUDIO_LATENCY && System.nanoTime() < limit) {
+            LockSupport.parkNanos(SPIN_NANOS / 2);
+        }
+        //Audio decide speed, frame deadline follow it
+        this.deadline = System.nanoTime();
+    }
+
+    private void measure(long now) {
+        if (this.last != 0) {
+            var interval = now - this.last;
+            this.frameTime += (long) ((interval - this.frameTime) * ALPHA);
+            this.jitter += (long) ((Math.abs(interval - this.unit) - this.jitter) * ALPHA);
+        }
+        this.last = now;
+        this.frames++;
+        if (now - this.second >= 1000_000_000) {
+            this.fps = this.frames;
+            this.frames = 0;
+            this.second = now;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package cn.navclub.nes4j.bin.core;
+
+import cn.navclub.nes4j.bin.NesConsole;
+import cn.navclub.nes4j.bin.config.AddressMode;
+import cn.navclub.nes4j.bin.config.Instruction;
+import lombok.Getter;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
+
+/**
+ * <p>
+ * Detect PRG-ROM loop only read memory which can't change before next scheduled event, like {@code JMP *},
+ * {@code LDA $2002/BPL} or polling a ram flag set by NMI handler. When loop return to its start address with same
+ * register state as last iteration, all whole iterations end before next event are skipped and their cycles are
+ * handed to APU/PPU in one catch-up.
+ * </p>
+ * <p>
+ * Only used in {@link cn.navclub.nes4j.bin.config.SyncMode#CATCH_UP} mode, APU/PPU/interrupt state only change
+ * when cycles are caught up, so skipped iterations can't observe anything different. Loop analyse result is
+ * cached by rpg-rom offset, each loop is analysed once.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class IdleLoopDetector {
+    private static final int RPG_ROM_START = 0x8000;
+    private static final int PAGE_SIZE = 0x2000;
+    //Max instruction count of loop body include back jump
+    private static final int MAX_LOOP_SIZE = 8;
+    private static final int PPU_STATUS = 0x2002;
+
+    private static final byte UNKNOWN = 0;
+    private static final byte BUSY = -1;
+
+    private final CPU cpu;
+    private final Mapper mapper;
+    private final NesConsole console;
+    //Loop instruction count indexed by rpg-rom offset of loop start
+    private final byte[] loops;
+
+    //Program counter of last check
+    private int last;
+    //Candidate loop start address
+    private int anchor;
+    //Cpu state when last arrive at loop start
+    private int ra;
+    private int rx;
+    private int ry;
+    private int sp;
+    private byte status;
+    private long cycles;
+    private long instructions;
+    //Next event timestamp when last arrive at loop start
+    private long next;
+    //Total instruction count of skipped iterations
+    @Getter
+    private long skipped;
+
+    public IdleLoopDetector(CPU cpu, NesConsole console) {
+        this.cpu = cpu;
+        this.anchor = -1;
+        this.console = console;
+        this.mapper = console.getMapper();
+        this.loops = new byte[this.mapper.prgSize()];
+    }
+
+    /**
+     * Called by game loop after instruction executed
+     */
+    public void check() {
+        var pc = this.cpu.getPc();
+        var last = this.last;
+        this.last = pc;
+        if (pc != this.anchor) {
+            //Backward jump may enter a loop
+            if (pc <= last && pc >= RPG_ROM_START && this.size(pc) > 0) {
+                this.anchor = pc;
+                this.snapshot();
+            }
+            return;
+        }
+        var size = this.size(pc);
+        var scheduler = this.console.getScheduler();
+        var length = this.cpu.getCycles() - this.cycles;
+        //Iteration was interrupted, state changed or event happened may change what next iteration read
+        if (size <= 0
+                || scheduler.getNext() != this.next
+                || this.cpu.getInstructions() - this.instructions != size
+                || !this.same()) {
+            this.snapshot();
+            return;
+        }
+        var remain = scheduler.getNext() - scheduler.getCycles() - this.console.getPending();
+        //Every instruction boundary of skipped iterations must before next event
+        var iterations = (remain - 1) / length;
+        if (iterations > 0) {
+            this.cpu.idle(iterations * length, iterations * size);
+            this.skipped += iterations * size;
+            this.console.idle((int) (iterations * length));
+        }
+        this.snapshot();
+    }
+
+    private void snapshot() {
+        this.ra = this.cpu.getRa();
+        this.rx = this.cpu.getRx();
+        this.ry = this.cpu.getRy();
+        this.sp = this.cpu.getSp();
+        this.status = this.cpu.getStatus();
+        this.cycles = this.cpu.getCycles();
+        this.instructions = this.cpu.getInstructions();
+        this.next = this.console.getScheduler().getNext();
+    }
+
+    private boolean same() {
+        return this.ra == this.cpu.getRa()
+                && this.rx == this.cpu.getRx()
+                && this.ry == this.cpu.getRy()
+                && this.sp == this.cpu.getSp()
+                && this.status == this.cpu.getStatus();
+    }
+
+    /**
+     * Get instruction count of idle loop start at target address
+     *
+     * @return If it isn't an idle loop return {@code -1}
+     */
+    private int size(int address) {
+        var offset = this.mapper.PRGOffset(address - RPG_ROM_START);
+        if (this.loops[offset] == UNKNOWN) {
+            this.loops[offset] = (byte) this.analyse(address);
+        }
+        return this.loops[offset];
+    }
+
+    private int analyse(final int address) {
+        var pc = address;
+        var poll = false;
+        var end = (address & -PAGE_SIZE) + PAGE_SIZE;
+        for (var count = 1; count <= MAX_LOOP_SIZE; count++) {
+            var ws6502 = CPU.IS6502Get(this.read(pc));
+            if (ws6502 == null || pc + ws6502.size() > end) {
+                return BUSY;
+            }
+            var mode = ws6502.addrMode();
+            var instruction = ws6502.instruction();
+            switch (instruction) {
+                case JMP -> {
+                    var hit = mode == AddressMode.Absolute && this.readInt(pc + 1) == address;
+                    return hit && !poll ? count : BUSY;
+                }
+                case BPL, BMI, BVC, BVS, BCC, BCS, BNE, BEQ -> {
+                    var hit = pc + 2 + this.read(pc + 1) == address;
+                    //PPU status loop only wait vblank flag, other bits may change in rendering
+                    var wait = !poll || (count == 2 && (instruction == Instruction.BPL || instruction == Instruction.BMI));
+                    return hit && wait ? count : BUSY;
+                }
+                case LDA, LDX, LDY, BIT, CMP, CPX, CPY, AND, ORA, EOR -> {
+                    var target = this.target(mode, pc);
+                    if (target == PPU_STATUS) {
+                        poll = count == 1 && (instruction == Instruction.LDA || instruction == Instruction.BIT);
+                        if (!poll) {
+                            return BUSY;
+                        }
+                    } else if (target < 0) {
+                        return BUSY;
+                    }
+                }
+                case TAX, TAY, TXA, TYA, CLC, SEC, CLV -> {
+                }
+                default -> {
+                    if (instruction != Instruction.NOP || mode != AddressMode.Implied) {
+                        return BUSY;
+                    }
+                }
+            }
+            pc += ws6502.size();
+        }
+        return BUSY;
+    }
+
+    /**
+     * Get read target of instruction, only memory which can't be changed by others are accepted
+     *
+     * @return If target may be changed return {@code -1}
+     */
+    private int target(AddressMode mode, int address) {
+        return switch (mode) {
+            case Immediate -> 0;
+            case ZeroPage, ZeroPage_X, ZeroPage_Y -> uint8(this.read(address + 1));
+            case Absolute -> {
+                var value = this.readInt(address + 1);
+                yield value < 0x2000 || value == PPU_STATUS || value >= RPG_ROM_START ? value : -1;
+            }
+            case Absolute_X, Absolute_Y -> {
+                var value = this.readInt(address + 1);
+                yield value + 0xff < 0x2000 || value >= RPG_ROM_START ? value : -1;
+            }
+            default -> -1;
+        };
+    }
+
+    private byte read(int address) {
+        return this.mapper.PRGRead(address - RPG_ROM_START);
+    }
+
+    private int readInt(int address) {
+        return uint8(this.read(address)) | uint8(this.read(address + 1)) << 8;
+    }
+}
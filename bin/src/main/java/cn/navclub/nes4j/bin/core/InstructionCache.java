@@ -0,0 +1,106 @@
+package cn.navclub.nes4j.bin.core;
+
+import cn.navclub.nes4j.bin.config.WS6502;
+
+import java.util.Arrays;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
+
+/**
+ * <p>
+ * Decoded instruction cache of PRG-ROM code, indexed by cpu 8KB page($8000,$A000,$C000,$E000) and populated
+ * lazily when instruction first executed. Opcode and operand are read from mapper directly, so interpreter skip
+ * bus decode of them for rom resident code.
+ * </p>
+ * <p>
+ * Every page record which rpg-rom offset it was decoded from, when mapper register was written page mapped to
+ * other bank is invalidated.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class InstructionCache {
+    private static final int RPG_ROM_START = 0x8000;
+    private static final int PAGE_SIZE = 0x2000;
+    //Instruction can't be cached
+    private static final Decoded NONE = new Decoded(null, null, 0);
+
+    private final CPU cpu;
+    private final Mapper mapper;
+    //rpg-rom offset of each page when decoded
+    private final int[] banks;
+    private final Decoded[][] pages;
+
+    public InstructionCache(CPU cpu, Mapper mapper) {
+        this.cpu = cpu;
+        this.mapper = mapper;
+        this.banks = new int[4];
+        this.pages = new Decoded[4][];
+    }
+
+    /**
+     * Get decoded instruction at target address
+     *
+     * @param address Cpu address
+     * @return If address not in rpg-rom or instruction can't decode return {@code null}
+     */
+    public Decoded get(int address) {
+        if (address < RPG_ROM_START) {
+            return null;
+        }
+        var page = (address - RPG_ROM_START) / PAGE_SIZE;
+        var entries = this.pages[page];
+        if (entries == null) {
+            entries = this.pages[page] = new Decoded[PAGE_SIZE];
+            this.banks[page] = this.mapper.PRGOffset(page * PAGE_SIZE);
+        }
+        var index = address % PAGE_SIZE;
+        var decoded = entries[index];
+        if (decoded == null) {
+            decoded = entries[index] = this.decode(address);
+        }
+        return decoded == NONE ? null : decoded;
+    }
+
+    private Decoded decode(int address) {
+        var ws6502 = CPU.IS6502Get(this.read(address));
+        //Operand cross page may be switched independently
+        if (ws6502 == null || (address % PAGE_SIZE) + ws6502.size() > PAGE_SIZE) {
+            return NONE;
+        }
+        var operand = 0;
+        for (var i = ws6502.size() - 1; i > 0; i--) {
+            operand = operand << 8 | uint8(this.read(address + i));
+        }
+        return new Decoded(ws6502, this.cpu.handler(uint8(ws6502.openCode())), operand);
+    }
+
+    private byte read(int address) {
+        return this.mapper.PRGRead(address - RPG_ROM_START);
+    }
+
+    /**
+     * Mapper register was written, invalidate page which was mapped to other bank
+     */
+    public void bankSwitch() {
+        for (var i = 0; i < this.pages.length; i++) {
+            var entries = this.pages[i];
+            var offset = this.mapper.PRGOffset(i * PAGE_SIZE);
+            if (entries == null || this.banks[i] == offset) {
+                continue;
+            }
+            this.banks[i] = offset;
+            Arrays.fill(entries, null);
+        }
+    }
+
+    /**
+     * Decoded instruction
+     *
+     * @param ws6502  Instruction metadata,include size and cycle
+     * @param handler Instruction handler
+     * @param operand Little endian operand bytes
+     */
+    public record Decoded(WS6502 ws6502, Runnable handler, int operand) {
+    }
+}
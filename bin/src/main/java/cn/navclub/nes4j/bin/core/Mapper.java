@@ -3,6 +3,7 @@ package cn.navclub.nes4j.bin.core;
 import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.config.NMapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
+import lombok.Getter;
 
 /**
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
@@ -10,13 +11,28 @@ import cn.navclub.nes4j.bin.io.Cartridge;
 public abstract class Mapper {
     protected static final int CHR_BANK_SIZE = 8 * 1024;
     protected static final int PRG_BANK_SIZE = 16 * 1024;
+    //Cpu page size of PRG page table
+    private static final int PRG_PAGE_SIZE = 0x100;
+    //Ppu page size of CHR page table
+    private static final int CHR_PAGE_SIZE = 0x400;
 
     protected final NesConsole console;
     protected final Cartridge cartridge;
+    //Rpg-rom offset of each 256 bytes cpu page in $8000-$FFFF
+    @Getter
+    private final int[] PRGPages;
+    //Ch-rom offset of each 1KB ppu page in $0000-$1FFF
+    @Getter
+    private final int[] CHRPages;
 
     public Mapper(Cartridge cartridge, NesConsole console) {
         this.console = console;
         this.cartridge = cartridge;
+        this.PRGPages = new int[0x8000 / PRG_PAGE_SIZE];
+        this.CHRPages = new int[0x2000 / CHR_PAGE_SIZE];
+        for (var i = 0; i < this.CHRPages.length; i++) {
+            this.CHRPages[i] = i * CHR_PAGE_SIZE;
+        }
     }
 
     /**
@@ -26,7 +42,26 @@ public abstract class Mapper {
      * @return rpg-rom data
      */
     public byte PRGRead(int address) {
-        return this.cartridge.getRgbrom()[address];
+        return this.cartridge.getRgbrom()[this.PRGPages[address / PRG_PAGE_SIZE] + address % PRG_PAGE_SIZE];
+    }
+
+    /**
+     * Rebuild PRG page table from {@link #PRGOffset(int)}, subclass must call it after PRG bank was switched.
+     */
+    protected final void PRGPageUpdate() {
+        for (var i = 0; i < this.PRGPages.length; i++) {
+            this.PRGPages[i] = this.PRGOffset(i * PRG_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Translate cpu address to rpg-rom offset in current bank configuration
+     *
+     * @param address Cpu address relative to $8000
+     * @return rpg-rom offset
+     */
+    public int PRGOffset(int address) {
+        return address;
     }
 
     /**
@@ -45,8 +80,35 @@ public abstract class Mapper {
      * @param address Target memory address
      * @return Target memory address value
      */
-    public byte CHRead(int address) {
-        return this.getChrom()[address];
+    public final byte CHRead(int address) {
+        return this.getChrom()[this.CHRPages[address / CHR_PAGE_SIZE] + address % CHR_PAGE_SIZE];
+    }
+
+    /**
+     * Rebuild CHR page table from {@link #CHROffset(int)}, subclass must call it after CHR bank was switched.
+     */
+    protected final void CHRPageUpdate() {
+        var changed = false;
+        for (var i = 0; i < this.CHRPages.length; i++) {
+            var offset = this.CHROffset(i * CHR_PAGE_SIZE);
+            changed |= offset != this.CHRPages[i];
+            this.CHRPages[i] = offset;
+        }
+        //Ppu isn't created when mapper initialize bank
+        var ppu = this.console.getPpu();
+        if (changed && ppu != null) {
+            ppu.rasterChanged();
+        }
+    }
+
+    /**
+     * Translate ppu pattern table address to ch-rom offset in current bank configuration
+     *
+     * @param address Ppu address in $0000-$1FFF
+     * @return ch-rom offset
+     */
+    public int CHROffset(int address) {
+        return address;
     }
 
     /**
@@ -103,4 +165,11 @@ public abstract class Mapper {
     public void PPUVideoAddrState(int addr) {
 
     }
+
+    /**
+     * Whether mapper count PPU A12 rising edge to generate IRQ, PPU must synchronize with CPU at each edge
+     */
+    public boolean scanlineIRQ() {
+        return false;
+    }
 }
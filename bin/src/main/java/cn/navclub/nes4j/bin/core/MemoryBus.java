@@ -20,7 +20,9 @@ import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
 public class MemoryBus implements Bus {
     private static final int RPG_ROM_START = 0x8000;
     private static final int RPG_ROM_END = 0xFFFF;
-    private static final int RAM_MIRROR_END = 0x1fff;
+    //Cpu page size of memory page table
+    private static final int PAGE_SIZE = 0x100;
+    private static final int RPG_ROM_PAGE = RPG_ROM_START / PAGE_SIZE;
     private static final LoggerDelegate log = LoggerFactory.logger(MemoryBus.class);
     private final NesConsole console;
     @Getter
@@ -37,6 +39,13 @@ public class MemoryBus implements Bus {
     //  SRAM (WRAM) [$6000,$8000) is the Save RAM, the addresses used to access RAM in the cartridges
     //  for storing save games.
     private final byte[] sram;
+    private final byte[] rgbrom;
+    //Rpg-rom offset of each page in $8000-$FFFF, updated by mapper when bank switch
+    private final int[] PRGPages;
+    //Direct backing memory of each page below $8000,null when page is io register
+    private final byte[][] pages;
+    //Backing memory offset of each page
+    private final int[] offsets;
 
     public MemoryBus(NesConsole console, JoyPad joyPad, JoyPad joyPad1) {
         this.console = console;
@@ -50,18 +59,32 @@ public class MemoryBus implements Bus {
 
         this.apu = console.getApu();
         this.ppu = console.getPpu();
+        this.rgbrom = console.getCartridge().getRgbrom();
+        this.PRGPages = console.getMapper().getPRGPages();
+
+        this.offsets = new int[RPG_ROM_PAGE];
+        this.pages = new byte[RPG_ROM_PAGE][];
+        this.page(0x0000, 0x2000, this.ram, 0x0000);
+        this.page(0x4100, 0x6000, this.exp, 0x4020);
+        this.page(0x6000, 0x8000, this.sram, 0x6000);
 
         this.reset();
     }
 
+    /**
+     * Map cpu page range to backing memory, range large than memory is mirrored
+     */
+    private void page(int start, int end, byte[] memory, int base) {
+        for (var address = start; address < end; address += PAGE_SIZE) {
+            this.pages[address / PAGE_SIZE] = memory;
+            this.offsets[address / PAGE_SIZE] = (address - base) % memory.length;
+        }
+    }
+
     /**
      * Mapper to real memory address
      */
     private int map(int address) {
-        //Mapper from 0x800-0x1fff to 0x000-0x7ff
-        if (0x800 <= address && address <= 0x1fff) {
-            address &= 0b11111111111;
-        }
         //IO_Mirrors mapper
         if (address >= 0x2008 && address <= 0x3fff) {
             address &= 0b10000000000111;
@@ -71,11 +94,42 @@ public class MemoryBus implements Bus {
 
     @Override
     public byte read(int address) {
+        var page = address / PAGE_SIZE;
+        if (page >= RPG_ROM_PAGE) {
+            if (address > RPG_ROM_END) {
+                return 0;
+            }
+            return this.rgbrom[this.PRGPages[page - RPG_ROM_PAGE] + address % PAGE_SIZE];
+        }
+        var memory = this.pages[page];
+        if (memory != null) {
+            return memory[this.offsets[page] + address % PAGE_SIZE];
+        }
+        return this.IORead(address);
+    }
+
+    /**
+     * Get backing memory of target cpu page, first byte of page is at {@link #offset(int)}
+     *
+     * @param page Cpu page(address / 0x100)
+     * @return If page is io register page return {@code null}
+     */
+    public byte[] memory(int page) {
+        return page >= RPG_ROM_PAGE ? this.rgbrom : this.pages[page];
+    }
+
+    /**
+     * Get first byte index of target cpu page in {@link #memory(int)}
+     */
+    public int offset(int page) {
+        return page >= RPG_ROM_PAGE ? this.PRGPages[page - RPG_ROM_PAGE] : this.offsets[page];
+    }
+
+    private byte IORead(int address) {
         final byte b;
         address = this.map(address);
-        if (address >= 0 && address <= RAM_MIRROR_END) {
-            b = this.ram[address];
-        } else if (address <= 0x2007) {
+        if (address <= 0x2007) {
+            this.console.catchUp();
             b = this.ppu.read(address);
         }
         //player1
@@ -92,20 +146,13 @@ public class MemoryBus implements Bus {
         }
         //Read from apu
         else if (address == 0x4015) {
+            this.console.catchUp();
             return this.apu.read(0x4015);
         }
         //Read a byte from expansion rom
         else if (address >= 0x4020 && address < 0x6000) {
             b = this.exp[address - 0x4020];
         }
-        //Read a byte from sram
-        else if (address >= 0x6000 && address < 0x8000) {
-            b = this.sram[address - 0x6000];
-        }
-        //Read rpg-rom data
-        else if (address >= RPG_ROM_START && address <= RPG_ROM_END) {
-            b = this.console.getMapper().PRGRead(address - RPG_ROM_START);
-        }
 
         //Default return 0
         else {
@@ -121,17 +168,26 @@ public class MemoryBus implements Bus {
      * @param b       Write data
      */
     public void write(int address, byte b) {
+        var page = address / PAGE_SIZE;
+        var memory = page < RPG_ROM_PAGE ? this.pages[page] : null;
+        if (memory != null) {
+            memory[this.offsets[page] + address % PAGE_SIZE] = b;
+            return;
+        }
+        this.IOWrite(address, b);
+    }
+
+    private void IOWrite(int address, byte b) {
         address = this.map(address);
 
-        if (address >= 0 && address <= RAM_MIRROR_END) {
-            this.ram[address] = b;
-        }
         //Writer ppu inner register
-        else if (address <= 0x2007) {
+        if (address <= 0x2007) {
+            this.console.catchUp();
             this.ppu.write(address, b);
         }
         //https://www.nesdev.org/wiki/PPU_programmer_reference#OAM_DMA_($4014)_%3E_write
         else if (address == 0x4014) {
+            this.console.catchUp();
             this.ppu.dmcWrite(b);
         }
         //Write to standard controller
@@ -140,19 +196,19 @@ public class MemoryBus implements Bus {
         }
         //Write data to apu
         else if ((address >= 0x4000 && address <= 0x4013) || address == 0x4015 || address == 0x4017) {
+            this.console.catchUp();
             this.apu.write(address, b);
         }
         //Write a byte to expansion rom
         else if (address >= 0x4020 && address < 0x6000) {
             this.exp[address - 0x4020] = b;
         }
-        //Write a byte to sram
-        else if (address >= 0x6000 && address < 0x8000) {
-            this.sram[address - 0x6000] = b;
-        }
         //Write to cpu memory
         else if (address >= RPG_ROM_START && address <= RPG_ROM_END) {
+            //Mapper may switch CHR bank or mirroring which affect PPU render
+            this.console.catchUp();
             this.console.getMapper().PRGWrite(address, b);
+            this.console.getCpu().getCache().bankSwitch();
         }
 
         //Unknown action
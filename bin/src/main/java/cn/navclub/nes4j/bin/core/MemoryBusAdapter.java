@@ -4,6 +4,7 @@ import cn.navclub.nes4j.bin.NesConsole;
 import cn.navclub.nes4j.bin.config.AddressMode;
 import cn.navclub.nes4j.bin.config.WS6502;
 import lombok.Getter;
+import lombok.Setter;
 
 
 import java.nio.charset.Charset;
@@ -25,6 +26,9 @@ public class MemoryBusAdapter implements Bus {
     private int variation;
     private final MemoryBus bus;
     private final NesConsole console;
+    //Decoded rom resident instruction which is executing
+    @Setter
+    private InstructionCache.Decoded decoded;
 
     public MemoryBusAdapter(CPU cpu, NesConsole console) {
         this.cpu = cpu;
@@ -39,35 +43,35 @@ public class MemoryBusAdapter implements Bus {
         var proCounter = this.cpu.getPc();
         return switch (mode) {
             case Immediate -> proCounter;
-            case ZeroPage -> this.ReadU8(proCounter);
+            case ZeroPage -> this.operandU8();
             case Absolute, Indirect -> {
-                var base = this.readInt(proCounter);
+                var base = this.operandInt();
                 if (mode == AddressMode.Indirect) {
                     base = this.readInt(base);
                 }
                 yield base;
             }
-            case ZeroPage_X -> u8add(this.ReadU8(proCounter), regX);
-            case ZeroPage_Y -> u8add(this.ReadU8(proCounter), regY);
+            case ZeroPage_X -> u8add(this.operandU8(), regX);
+            case ZeroPage_Y -> u8add(this.operandU8(), regY);
             case Absolute_X -> {
-                var base = this.readInt(proCounter);
+                var base = this.operandInt();
                 var addr = base + regX;
                 this.pageCross(base, addr);
                 yield addr;
             }
             case Absolute_Y -> {
-                var base = this.readInt(proCounter);
+                var base = this.operandInt();
                 var addr = base + regY;
                 this.pageCross(base, addr);
                 yield addr;
             }
             case Indirect_X -> {
-                var base = this.ReadU8(proCounter);
+                var base = this.operandU8();
                 var ptr = u8add(base, regX);
                 yield this.readInt(ptr);
             }
             case Indirect_Y -> {
-                var base = this.ReadU8(proCounter);
+                var base = this.operandU8();
                 base = this.readInt(base);
                 var addr = base + regY;
                 pageCross(base, addr);
@@ -77,6 +81,27 @@ public class MemoryBusAdapter implements Bus {
         };
     }
 
+    /**
+     * Read one byte operand at program counter, decoded instruction operand used if present
+     */
+    public int operandU8() {
+        if (this.decoded == null) {
+            return this.ReadU8(this.cpu.getPc());
+        }
+        this.SyncOtherComponent();
+        return this.decoded.operand() & 0xff;
+    }
+
+    /**
+     * Read two byte operand at program counter, decoded instruction operand used if present
+     */
+    public int operandInt() {
+        if (this.decoded == null) {
+            return this.readInt(this.cpu.getPc());
+        }
+        this.SyncOtherComponent();
+        return this.decoded.operand();
+    }
 
     /**
      * Judge whether the data obtained in the current addressing mode is spread across pages
@@ -134,6 +159,10 @@ public class MemoryBusAdapter implements Bus {
     }
 
 
+    protected void idle(long cycles) {
+        this.cycles += cycles;
+    }
+
     protected void _finally(WS6502 ws6502) {
         var tmp = ws6502.cycle() + this.variation;
         while (tmp-- > 0) {
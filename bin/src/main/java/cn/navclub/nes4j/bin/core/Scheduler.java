@@ -0,0 +1,112 @@
+package cn.navclub.nes4j.bin.core;
+
+import cn.navclub.nes4j.bin.config.TimedEvent;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Master clock event scheduler. Every {@link TimedEvent} source owns a fixed slot hold absolute cycle timestamp
+ * of its next event, so the clock driver only compare current cycle with the earliest one instead of each
+ * component polling its own counter on every cycle.
+ * </p>
+ * <p>
+ * Event without handler is only a synchronization point, in {@link cn.navclub.nes4j.bin.config.SyncMode#CATCH_UP}
+ * mode APU and PPU are caught up before it.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class Scheduler {
+    private static final long NEVER = Long.MAX_VALUE;
+    private static final TimedEvent[] EVENTS = TimedEvent.values();
+
+    private final long[] timestamps;
+    private final Runnable[] handlers;
+    //Elapsed CPU cycles executed by APU and PPU
+    @Getter
+    private long cycles;
+    //Earliest pending event timestamp
+    @Getter
+    private long next;
+
+    public Scheduler() {
+        this.handlers = new Runnable[EVENTS.length];
+        this.timestamps = new long[EVENTS.length];
+        this.reset();
+    }
+
+    /**
+     * Register handler call when event due
+     *
+     * @param event   Event source
+     * @param handler Event handler
+     */
+    public void register(TimedEvent event, Runnable handler) {
+        this.handlers[event.ordinal()] = handler;
+    }
+
+    /**
+     * Schedule event at absolute cycle, replace previous timestamp
+     *
+     * @param event     Event source
+     * @param timestamp Absolute cycle
+     */
+    public void schedule(TimedEvent event, long timestamp) {
+        this.timestamps[event.ordinal()] = timestamp;
+        this.update();
+    }
+
+    /**
+     * Cancel event pending timestamp
+     *
+     * @param event Event source
+     */
+    public void cancel(TimedEvent event) {
+        this.schedule(event, NEVER);
+    }
+
+    /**
+     * Advance master clock one CPU cycle
+     */
+    public void tick() {
+        this.cycles++;
+    }
+
+    /**
+     * Fire all events that due at current cycle, event slot is cleared before its handler call so that handler
+     * can schedule next one.
+     */
+    public void dispatch() {
+        if (this.cycles < this.next) {
+            return;
+        }
+        for (var event : EVENTS) {
+            var index = event.ordinal();
+            if (this.timestamps[index] > this.cycles) {
+                continue;
+            }
+            this.timestamps[index] = NEVER;
+            var handler = this.handlers[index];
+            if (handler != null) {
+                handler.run();
+            }
+        }
+        this.update();
+    }
+
+    private void update() {
+        var value = NEVER;
+        for (var timestamp : this.timestamps) {
+            value = Math.min(value, timestamp);
+        }
+        this.next = value;
+    }
+
+    public void reset() {
+        this.cycles = 0;
+        this.next = NEVER;
+        Arrays.fill(this.timestamps, NEVER);
+    }
+}
@@ -39,15 +39,17 @@ public class CNMapper extends Mapper {
     public CNMapper(Cartridge cartridge, NesConsole console) {
         super(cartridge, console);
         this.shifter = this.chrSize() / CHR_BANK_SIZE - 1;
+        this.PRGPageUpdate();
     }
 
     @Override
     public void PRGWrite(int address, byte b) {
         this.chrBank = (b & shifter);
+        this.CHRPageUpdate();
     }
 
     @Override
-    public byte CHRead(int address) {
-        return this.getChrom()[this.chrBank * CHR_BANK_SIZE + address];
+    public int CHROffset(int address) {
+        return this.chrBank * CHR_BANK_SIZE + address;
     }
 }
@@ -29,13 +29,15 @@ public class KonamiVRC24 extends Mapper {
         this.CHRMapper = new int[8];
         this.chrMode = this.chrSize() / 0x400 - 1;
         this.mod = this.PRGMapper[3] = this.calMaxBankIdx(PRG_SWAP_SIZE);
+        this.PRGPageUpdate();
+        this.CHRPageUpdate();
     }
 
     @Override
-    public byte PRGRead(int address) {
+    public int PRGOffset(int address) {
         var idx = this.PRGMapper[address / PRG_SWAP_SIZE];
         var offset = address % PRG_SWAP_SIZE;
-        return super.PRGRead(idx * PRG_SWAP_SIZE + offset);
+        return idx * PRG_SWAP_SIZE + offset;
     }
 
     @Override
@@ -87,6 +89,7 @@ public class KonamiVRC24 extends Mapper {
                 this.PRGMapper[0] = this.PRGMapper[3] - 1;
                 this.PRGMapper[2] = idx;
             }
+            this.PRGPageUpdate();
         }
         /*
          * PRG Select 1 ($A000, $A001, $A002, $A003)
@@ -98,6 +101,7 @@ public class KonamiVRC24 extends Mapper {
          */
         if (address > 0x9FFF && address < 0xA004) {
             this.PRGMapper[1] = (b & this.mod);
+            this.PRGPageUpdate();
         }
         /*
          * Mirroring Control ($9000, $9001, $9002, $9003)
@@ -148,10 +152,10 @@ public class KonamiVRC24 extends Mapper {
     }
 
     @Override
-    public byte CHRead(int address) {
+    public int CHROffset(int address) {
         var idx = address / 0x400;
         var offset = address % 0x400;
-        return this.getChrom()[this.CHRMapper[idx] * 0x400 + offset];
+        return this.CHRMapper[idx] * 0x400 + offset;
     }
 
     /**
@@ -185,6 +189,7 @@ public class KonamiVRC24 extends Mapper {
         } else {
             this.chrBank |= (b & 0x1F) << 4;
             this.CHRMapper[idx] = (this.chrBank & this.chrMode);
+            this.CHRPageUpdate();
         }
     }
 }
@@ -145,6 +145,7 @@ public class MMC1Mapper extends Mapper {
                     this.PRGBank[0] = this.MMC1SR;
                     this.PRGBank[1] = this.calMaxBankIdx();
                 }
+                this.PRGPageUpdate();
             }
         }
         this.MMC1SR = DEFAULT_MMC1SR;
@@ -188,20 +189,21 @@ public class MMC1Mapper extends Mapper {
         } else if (!swap8k) {
             this.ChrBank[1] = MMC1SR;
         }
+        this.CHRPageUpdate();
     }
 
     @Override
-    public byte CHRead(int address) {
+    public int CHROffset(int address) {
         var idx = address / 0x1000;
         var offset = address % 0x1000;
-        return super.CHRead(this.ChrBank[idx] * 0x1000 + offset);
+        return this.ChrBank[idx] * 0x1000 + offset;
     }
 
     @Override
-    public byte PRGRead(int address) {
+    public int PRGOffset(int address) {
         var idx = address / PRG_BANK_SIZE;
         var offset = address % PRG_BANK_SIZE;
-        return super.PRGRead(this.PRGBank[idx] * PRG_BANK_SIZE + offset);
+        return this.PRGBank[idx] * PRG_BANK_SIZE + offset;
     }
 
     @Override
@@ -210,5 +212,7 @@ public class MMC1Mapper extends Mapper {
         this.MMC1SR = DEFAULT_MMC1SR;
         this.PRGBank[0] = 0;
         this.PRGBank[1] = this.calMaxBankIdx();
+        this.PRGPageUpdate();
+        this.CHRPageUpdate();
     }
 }
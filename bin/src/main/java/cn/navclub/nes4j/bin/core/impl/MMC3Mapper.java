@@ -1,7 +1,7 @@
 package cn.navclub.nes4j.bin.core.impl;
 
 import cn.navclub.nes4j.bin.NesConsole;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.InterruptLine;
 import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.core.Mapper;
 import cn.navclub.nes4j.bin.io.Cartridge;
@@ -79,6 +79,8 @@ public class MMC3Mapper extends Mapper {
         this.PRGMode = calMaxBankIdx(PRG_BANK_BANK);
         this.PRGBank[3] = this.PRGMode;
         this.PRGBank[2] = this.PRGMode - 1;
+        this.PRGPageUpdate();
+        this.CHRPageUpdate();
     }
 
     @Override
@@ -185,6 +187,9 @@ public class MMC3Mapper extends Mapper {
         // even: Writing any value to this register will disable MMC3 interrupts AND acknowledge any pending interrupts.
         if (address >= 0xe000 && address <= 0xffff) {
             this.IRQEnable = !even;
+            if (even) {
+                this.console.hardwareInterrupt(InterruptLine.MAPPER, false);
+            }
         }
 
         // PRG RAM protect ($A001-$BFFF, odd)
@@ -219,6 +224,7 @@ public class MMC3Mapper extends Mapper {
             this.PRGBank[this.pbm << 1] = offset;
             this.PRGBank[((this.pbm ^ 0xff) << 1) & 0x03] = this.PRGMode - 1;
         }
+        this.PRGPageUpdate();
     }
 
     private void ChrSwap(byte b) {
@@ -253,20 +259,21 @@ public class MMC3Mapper extends Mapper {
             var k = this.chrInversion == 0 ? 2 : -2;
             this.CHRBank[k + r] = index;
         }
+        this.CHRPageUpdate();
     }
 
     @Override
-    public byte PRGRead(int address) {
+    public int PRGOffset(int address) {
         var idx = address / PRG_BANK_BANK;
         var offset = address % PRG_BANK_BANK;
-        return super.PRGRead(this.PRGBank[idx] * 0x2000 + offset);
+        return this.PRGBank[idx] * 0x2000 + offset;
     }
 
     @Override
-    public byte CHRead(int address) {
+    public int CHROffset(int address) {
         var index = address / 0x400;
         var offset = address % 0x400;
-        return this.getChrom()[this.CHRBank[index] * 0x400 + offset];
+        return this.CHRBank[index] * 0x400 + offset;
     }
 
     @Override
@@ -287,15 +294,21 @@ public class MMC3Mapper extends Mapper {
         // The "alternate revision" checks the IRQ counter transition 1→0, whether from
         // decrementing or reloading.
         if (this.counter == 0 && this.IRQEnable) {
-            this.console.hardwareInterrupt(CPUInterrupt.IRQ);
+            this.console.hardwareInterrupt(InterruptLine.MAPPER, true);
         }
 
         this.reloadFlag = false;
     }
 
+    @Override
+    public boolean scanlineIRQ() {
+        return true;
+    }
+
     private boolean isRisingEdge(int addr) {
         var risingEdge = false;
-        var cycles = this.console.getCpu().getCycles();
+        //PPU side clock, CPU may run ahead of PPU in catch-up mode
+        var cycles = this.console.getScheduler().getCycles();
         if ((addr & 0x1000) == 0x1000) {
             risingEdge = this.a12LowCycle > 0 && (cycles - this.a12LowCycle) >= 3;
             this.a12LowCycle = 0;
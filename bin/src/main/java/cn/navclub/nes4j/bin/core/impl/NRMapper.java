@@ -8,5 +8,6 @@ public class NRMapper extends Mapper {
 
     public NRMapper(Cartridge cartridge, NesConsole console) {
         super(cartridge, console);
+        this.PRGPageUpdate();
     }
 }
@@ -12,6 +12,7 @@ public class UXMapper extends Mapper {
         super(cartridge, console);
         this.PRGBank = new int[2];
         this.PRGBank[1] = this.calMaxBankIdx();
+        this.PRGPageUpdate();
     }
 
     /**
@@ -30,12 +31,13 @@ public class UXMapper extends Mapper {
     @Override
     public void PRGWrite(int address, byte b) {
         this.PRGBank[0] = b & this.PRGBank[1];
+        this.PRGPageUpdate();
     }
 
     @Override
-    public byte PRGRead(int address) {
+    public int PRGOffset(int address) {
         var idx = address / 0x4000;
         var offset = address % 0x4000;
-        return super.PRGRead((this.PRGBank[idx] * PRG_BANK_SIZE) + offset);
+        return (this.PRGBank[idx] * PRG_BANK_SIZE) + offset;
     }
 }
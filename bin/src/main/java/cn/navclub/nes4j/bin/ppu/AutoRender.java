@@ -0,0 +1,78 @@
+package cn.navclub.nes4j.bin.ppu;
+
+/**
+ * <p>
+ * Choose render path per frame. Frame is drawn by {@link ScanlineRender} unless last frame contain raster effect,
+ * that is, a write to $2000/$2001/$2005/$2006/$2007, CHR bank switch or mirroring change while rendering enabled
+ * and PPU is drawing visible pixels(dot 1-256) or fetching first two tiles of next scanline(dot 321-340).
+ * </p>
+ * <p>
+ * When raster effect is detected on scanline path, frame continue with dot by dot path of {@link Render} from
+ * next scanline background prefetch(dot 321), so only scanline which the write happened on is drawn by scanline
+ * path. MMC3 A12 rising edge is simulated at same dots on both path, so scanline IRQ timing doesn't depend on
+ * which path is used.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class AutoRender extends ScanlineRender {
+    //Whether current frame is drawn dot by dot
+    private boolean dot;
+    //Whether raster effect was detected on current frame
+    private boolean raster;
+
+    public AutoRender(PPU ppu) {
+        super(ppu);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.dot = false;
+        this.raster = false;
+    }
+
+    @Override
+    public void tick() {
+        //Choose render path at beginning of pre-render scanline
+        if (this.scanline == 261 && this.cycles == 0) {
+            this.dot = this.raster;
+            this.raster = false;
+        }
+        super.tick();
+    }
+
+    @Override
+    public void render() {
+        var line = this.scanline < 240 || this.scanline == 261;
+        if (line && this.cycles == 321 && this.raster) {
+            this.dot = true;
+        }
+        if (!this.dot) {
+            super.render();
+            return;
+        }
+        this.renderDot();
+        if (line) {
+            switch (this.cycles) {
+                case 260 -> this.ppu.setBusAddr(this.spriteA12);
+                case 321 -> this.ppu.setBusAddr(this.ppu.ctr.backgroundNameTable());
+            }
+        }
+    }
+
+    @Override
+    protected void rasterChanged() {
+        if (this.raster || !this.mask.enableRender()) {
+            return;
+        }
+        var dot = this.cycles;
+        this.raster = (this.scanline < 240 && dot >= 1 && dot <= 256)
+                || ((this.scanline < 239 || this.scanline == 261) && dot >= 321);
+    }
+
+    @Override
+    protected boolean dotPath() {
+        return this.dot;
+    }
+}
@@ -15,7 +15,11 @@ public class Frame {
         this.pixels = new int[width * height];
     }
 
-    public final int getPixel(int pos) {
+    protected Frame(int[] pixels) {
+        this.pixels = pixels;
+    }
+
+    public int getPixel(int pos) {
         return this.pixels[pos];
     }
 
@@ -23,6 +27,25 @@ public class Frame {
         this.pixels[y * width + x] = pixel;
     }
 
+    /**
+     * Update whole scanline pixels
+     *
+     * @param y    Scanline
+     * @param line Scanline pixels, length is {@link #width}
+     */
+    public void update(int y, int[] line) {
+        System.arraycopy(line, 0, this.pixels, y * width, width);
+    }
+
+    /**
+     * Copy whole frame argb pixels to target array
+     *
+     * @param dst Target array,length must not less than {@code width * height}
+     */
+    public void copy(int[] dst) {
+        System.arraycopy(this.pixels, 0, dst, 0, this.pixels.length);
+    }
+
     public void clear() {
         Arrays.fill(this.pixels, 0, this.pixels.length, (byte) 0);
     }
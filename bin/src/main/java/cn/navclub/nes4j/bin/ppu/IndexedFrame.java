@@ -0,0 +1,67 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import java.util.Arrays;
+
+/**
+ * Indexed color frame, every pixel store {@code emphasis << 6 | color} instead of argb value, so render only write
+ * half memory of {@link Frame} and argb value is looked up from color table when frame consumer read it.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class IndexedFrame extends Frame {
+    //Not rendered pixel, same as cleared argb frame
+    private static final short EMPTY = -1;
+
+    private final short[] indices;
+    //Packed rgb indexed by emphasis << 6 | color
+    private final int[] table;
+
+    public IndexedFrame(int[] table) {
+        //Argb pixels aren't stored
+        super(null);
+        this.table = table;
+        this.indices = new short[width * height];
+        this.clear();
+    }
+
+    @Override
+    public int getPixel(int pos) {
+        return this.argb(this.indices[pos]);
+    }
+
+    @Override
+    public void update(int x, int y, int pixel) {
+        this.indices[y * width + x] = (short) (pixel & (PaletteTable.INDEXED | 0x1ff));
+    }
+
+    @Override
+    public void update(int y, int[] line) {
+        var offset = y * width;
+        for (var x = 0; x < width; x++) {
+            this.indices[offset + x] = (short) (line[x] & (PaletteTable.INDEXED | 0x1ff));
+        }
+    }
+
+    @Override
+    public void copy(int[] dst) {
+        for (var i = 0; i < this.indices.length; i++) {
+            dst[i] = this.argb(this.indices[i]);
+        }
+    }
+
+    private int argb(short index) {
+        if (index == EMPTY) {
+            return 0;
+        }
+        //Pixel wasn't resolved from palette(zero initialized sprite pixel) is black
+        if ((index & PaletteTable.INDEXED) == 0) {
+            return 0xff << 24;
+        }
+        return 0xff << 24 | this.table[index & 0x1ff];
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.indices, EMPTY);
+    }
+}
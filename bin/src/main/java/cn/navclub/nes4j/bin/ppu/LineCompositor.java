@@ -0,0 +1,47 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.logging.LoggerFactory;
+import cn.navclub.nes4j.bin.ppu.register.PPUMask;
+
+import java.util.ServiceLoader;
+
+/**
+ * <p>
+ * Merge one scanline background row and sprite row to argb pixels, used by {@link ScanlineRender}.
+ * </p>
+ * <p>
+ * Compositor provided by other module(e.g. Vector API compositor of optional {@code nes4j-vector} module) is
+ * loaded by {@link ServiceLoader}, when not any provider present or provider can't be loaded by current runtime
+ * fallback to {@link ScalarCompositor}. All compositor must output same pixels.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public interface LineCompositor {
+    /**
+     * Composite a scanline
+     *
+     * @param background Background pixels of 33 tiles, transparent pixel is negative
+     * @param fineX      Fine x scroll, index of first visible background pixel
+     * @param foreground Sprite pixels, {@code -1} if not any sprite
+     * @param backdrop   Universal background color
+     * @param mask       Mask register
+     * @param line       Output argb pixels, length is {@link Frame#width}
+     */
+    void composite(int[] background, int fineX, int[] foreground, int backdrop, PPUMask mask, int[] line);
+
+    /**
+     * Create fastest compositor supported by current runtime
+     */
+    static LineCompositor create() {
+        try {
+            var provider = ServiceLoader.load(LineCompositor.class).findFirst();
+            if (provider.isPresent()) {
+                return provider.get();
+            }
+        } catch (Throwable e) {
+            LoggerFactory.logger(LineCompositor.class).warning("Line compositor provider unavailable:{}", e.getMessage());
+        }
+        return new ScalarCompositor();
+    }
+}
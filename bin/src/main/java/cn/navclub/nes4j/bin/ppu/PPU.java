@@ -8,15 +8,13 @@ import cn.navclub.nes4j.bin.logging.LoggerDelegate;
 import cn.navclub.nes4j.bin.logging.LoggerFactory;
 import cn.navclub.nes4j.bin.ppu.register.PPUControl;
 import cn.navclub.nes4j.bin.ppu.register.PPUMask;
-import cn.navclub.nes4j.bin.config.CPUInterrupt;
+import cn.navclub.nes4j.bin.config.InterruptLine;
 import cn.navclub.nes4j.bin.config.NameMirror;
 import cn.navclub.nes4j.bin.config.PStatus;
+import cn.navclub.nes4j.bin.config.FrameFormat;
+import cn.navclub.nes4j.bin.config.RenderMode;
 import cn.navclub.nes4j.bin.ppu.register.PPUStatus;
 import lombok.Getter;
-import lombok.Setter;
-
-
-import java.util.concurrent.locks.LockSupport;
 
 import static cn.navclub.nes4j.bin.util.BinUtil.*;
 
@@ -92,6 +90,8 @@ import static cn.navclub.nes4j.bin.util.BinUtil.*;
  */
 public class PPU implements Component {
     private static final LoggerDelegate log = LoggerFactory.logger(PPU.class);
+    //Max continuous frames skipped by adaptive frame skip
+    private static final int MAX_FRAME_SKIP = 4;
 
     private static final byte[][] MIRROR_LOOK_UP = {
             //HORIZONTAL
@@ -113,9 +113,13 @@ public class PPU implements Component {
     protected final PPUMask mask;
     protected final PPUStatus status;
     private final Render render;
+    protected final PatternCache patterns;
+    @Getter
+    protected final PaletteTable palettes;
     @Getter
     protected final PPUControl ctr;
     protected final byte[] oam;
+    protected final SpriteBuckets sprites;
     /**
      * <h1>Color Palette</h1>
      * <p>
@@ -142,8 +146,9 @@ public class PPU implements Component {
     private int oamAddr;
     private byte byteBuf;
     @Getter
-    @Setter
     private NameMirror mirrors;
+    //Vram offset of each name table($2000,$2400,$2800,$2C00),updated when mirroring changed
+    private final int[] nameTables;
     protected final NesConsole console;
     // The PPU uses the current VRAM address for both reading and writing PPU memory thru $2007,
     // and for fetching nametable data to draw the background. As it's drawing the background,
@@ -162,11 +167,13 @@ public class PPU implements Component {
     private int busAddr;
     //Suppress val or nmi flag
     private boolean suppress;
-    private long lastFrameTime;
+    //Continuous frames skipped by adaptive frame skip
+    private int skipped;
 
-    public PPU(final NesConsole console, NameMirror mirrors) {
+    public PPU(final NesConsole console, NameMirror mirrors, RenderMode mode, FrameFormat format) {
         this.console = console;
-        this.mirrors = mirrors;
+        this.nameTables = new int[4];
+        this.setMirrors(mirrors);
         this.oam = new byte[256];
         //From 2048 expand to 4096 prepare to support four screen
         this.vram = new byte[4096];
@@ -174,7 +181,14 @@ public class PPU implements Component {
         this.ctr = new PPUControl();
         this.status = new PPUStatus();
         this.palette = new byte[32];
-        this.render = new Render(this);
+        this.patterns = new PatternCache(console.getMapper());
+        this.palettes = new PaletteTable(this.palette, format);
+        this.sprites = new SpriteBuckets(this.oam, this.ctr);
+        this.render = switch (mode) {
+            case DOT -> new Render(this);
+            case SCANLINE -> new ScanlineRender(this);
+            case AUTO -> new AutoRender(this);
+        };
 
         this.reset();
     }
@@ -191,17 +205,15 @@ public class PPU implements Component {
         this.byteBuf = 0;
         this.render.reset();
         this.suppress = false;
-        this.lastFrameTime = 0;
+        this.skipped = 0;
         this.ctr.setBits(int8(0));
         this.mask.setBits(int8(0));
+        this.palettes.mask(int8(0));
         this.status.setBits(int8(0));
     }
 
     @Override
     public void tick() {
-        if (this.lastFrameTime == 0) {
-            this.lastFrameTime = System.nanoTime();
-        }
         for (int i = 0; i < 3; i++) {
             this.render.tick();
         }
@@ -267,20 +279,38 @@ public class PPU implements Component {
     @Override
     public void write(int address, byte b) {
         switch (address) {
-            case 0x2000 -> this.writeCtr(b);
-            case 0x2001 -> this.mask.setBits(b);
+            case 0x2000 -> {
+                this.render.rasterChanged();
+                this.writeCtr(b);
+            }
+            case 0x2001 -> {
+                //Check before and after write, rendering may be turned off or on
+                this.render.rasterChanged();
+                this.mask.setBits(b);
+                this.palettes.mask(b);
+                this.render.rasterChanged();
+            }
             case 0x2003 -> this.oamAddr = uint8(b);
             case 0x2004 -> {
+                this.sprites.write(this.oamAddr, b);
                 this.oam[this.oamAddr] = b;
                 this.oamAddr = u8sbc(this.oamAddr, 1);
             }
-            case 0x2005 -> this.updateScrollPos(b);
-            case 0x2006 -> this.updateVideoAddr(b);
+            case 0x2005 -> {
+                this.render.rasterChanged();
+                this.updateScrollPos(b);
+            }
+            case 0x2006 -> {
+                this.render.rasterChanged();
+                this.updateVideoAddr(b);
+            }
             case 0x2007 -> {
+                this.render.rasterChanged();
                 var addr = this.v % 0x4000;
                 //Update pattern table
                 if (addr < 0x2000) {
                     this.console.getMapper().CHWrite(addr, b);
+                    this.patterns.invalidate(addr);
                 }
                 //Update name table
                 else if (addr < 0x3f00) {
@@ -288,7 +318,9 @@ public class PPU implements Component {
                 }
                 //Update palette value
                 else if (addr < 0x3f20) {
-                    this.palette[this.paletteMirror(addr)] = b;
+                    var index = this.paletteMirror(addr);
+                    this.palette[index] = b;
+                    this.palettes.write(index);
                 }
                 this.openBusUpdateVideoAddr();
             }
@@ -387,11 +419,24 @@ public class PPU implements Component {
      * @return Current nametable data address
      */
     private int VRAMirror(int addr) {
-        addr = (addr - 0x2000) % 0x1000;
-        var table = addr / 0x0400;
-        var offset = addr % 0x0400;
-        addr = MIRROR_LOOK_UP[this.mirrors.ordinal()][table] * 0x400 + offset;
-        return addr;
+        return this.nameTables[(addr >> 10) & 0x03] + (addr & 0x3ff);
+    }
+
+    /**
+     * Name table mirroring changed by cartridge or mapper, all mirroring change must use it so name table
+     * offsets are always current.
+     *
+     * @param mirrors Name table mirroring
+     */
+    public void setMirrors(NameMirror mirrors) {
+        if (mirrors != this.mirrors) {
+            this.rasterChanged();
+        }
+        var tables = MIRROR_LOOK_UP[mirrors.ordinal()];
+        for (var i = 0; i < this.nameTables.length; i++) {
+            this.nameTables[i] = tables[i] * 0x400;
+        }
+        this.mirrors = mirrors;
     }
 
     /**
@@ -521,17 +566,29 @@ public class PPU implements Component {
      * due to OAMADDR writes also having a "corruption" effect,[4] this technique is not recommended.
      */
     public void dmcWrite(byte value) {
-        var addr = uint8(value) << 8;
+        var page = uint8(value);
         var bus = this.console.getBus();
-        for (int i = 0; i < 0x100; i++) {
-            this.oam[this.oamAddr] = bus.read(addr + i);
-            this.oamAddr = u8add(this.oamAddr, 1);
+        var memory = bus.memory(page);
+        //Ram,sram or rom page copy from backing memory direct,start from oam address and wrap around
+        if (memory != null) {
+            var offset = bus.offset(page);
+            var length = 0x100 - this.oamAddr;
+            System.arraycopy(memory, offset, this.oam, this.oamAddr, length);
+            System.arraycopy(memory, offset + length, this.oam, 0, this.oamAddr);
+        } else {
+            var addr = page << 8;
+            for (int i = 0; i < 0x100; i++) {
+                this.oam[this.oamAddr] = bus.read(addr + i);
+                this.oamAddr = u8add(this.oamAddr, 1);
+            }
         }
+        this.sprites.invalidate();
         //
         // Once the STA instruction finishes, it needs to consume an additional 512 cycles (since it's performing
-        // 256 reads and 256 writes) plus another 1-2 cycles of "synchronization" within the Sprite DMA logic.
+        // 256 reads and 256 writes) plus 1 wait state cycle, and another alignment cycle if DMA start on odd
+        // cycle. Scheduler clock include stall cycles, so it's used to decide cycle parity.
         //
-        this.console.setStall(512);
+        this.console.setStall(513 + (int) (this.console.getScheduler().getCycles() & 1));
     }
 
     /**
@@ -541,29 +598,60 @@ public class PPU implements Component {
         if (!this.suppress) {
             this.status.set(PStatus.V_BLANK_OCCUR);
             if (this.ctr.generateVBlankNMI()) {
-                this.console.hardwareInterrupt(CPUInterrupt.NMI);
+                this.console.hardwareInterrupt(InterruptLine.NMI, true);
             }
         }
         this.suppress = false;
     }
 
     /**
-     * Simple use fixed time step update way fixed game output fps was 60.
-     *
-     * @param now Video frame output finish timestamp
+     * Decide whether next frame skip pixel composition, called by game loop after frame output and pace. Adaptive
+     * frame skip skip frame when host is still more than one frame behind, but output at least one of
+     * {@link #MAX_FRAME_SKIP} + 1 frames.
      */
-    protected void calVideoPauseTime(long now) {
-        var unit = 1000000000 / this.console.TVFps();
-        var span = unit - (now - this.lastFrameTime);
-        if (span > 0) {
-            LockSupport.parkNanos(span - 2000);
-            while(System.nanoTime() < now + span);
-            this.lastFrameTime = System.nanoTime();
+    public void renderSkip() {
+        if (this.console.isRenderSkip()) {
+            this.render.skip = true;
+        } else if (!this.console.isFrameSkip() || !this.console.getPacer().behind() || this.skipped >= MAX_FRAME_SKIP) {
+            this.skipped = 0;
+            this.render.skip = false;
         } else {
-            this.lastFrameTime = now + span;
+            this.skipped++;
+            this.render.skip = true;
         }
     }
 
+    /**
+     * Predict how many CPU cycles at least until vblank start(NMI) or other PPU event CPU may observe
+     */
+    public int cyclesToEvent() {
+        return Math.max(1, this.render.dotsToEvent() / 3);
+    }
+
+    /**
+     * Mapper switched CHR bank or mirroring, PPU may be rendering mid-scanline
+     */
+    public void rasterChanged() {
+        //Mirroring is set before render created
+        if (this.render != null) {
+            this.render.rasterChanged();
+        }
+    }
+
+    /**
+     * Frames drawn dot by dot, see {@link RenderMode}
+     */
+    public long getDotFrames() {
+        return this.render.getDotFrames();
+    }
+
+    /**
+     * Frames drawn scanline by scanline, see {@link RenderMode}
+     */
+    public long getScanlineFrames() {
+        return this.render.getScanlineFrames();
+    }
+
     public long getCycle() {
         return this.render.cycles;
     }
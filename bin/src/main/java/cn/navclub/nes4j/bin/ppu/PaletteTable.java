@@ -0,0 +1,167 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.config.FrameFormat;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Precomputed color table of system palette. All 64 colors under 8 emphasis combination(PPUMASK bit 5-7) are
+ * packed to rgb value once, and every palette ram entry is resolved to final rgb value when it was written or
+ * greyscale/emphasis bits changed, so render only index {@link #getColors()} for each pixel.
+ * </p>
+ * <p>
+ * Resolved color only use low 24 bits, render use high 8 bits as flag and frame add alpha channel. When frame
+ * format is {@link FrameFormat#INDEXED}, palette ram entry is resolved to {@code emphasis << 6 | color} with
+ * {@link #INDEXED} bit set(so opaque pixel is positive like rgb value) and {@link IndexedFrame} look up rgb value
+ * when frame was read.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class PaletteTable {
+    //Emphasized channel keep its value, other two channels are attenuated
+    private static final double ATTENUATION = 0.816328;
+    //Greyscale and emphasis bits of PPUMASK
+    private static final int MASK_BITS = 0xe1;
+    //Marker bit of indexed color
+    public static final int INDEXED = 0x200;
+    private static final int[][] DEF_SYS_PALETTE;
+
+    static {
+        DEF_SYS_PALETTE = new int[][]{
+                {0x80, 0x80, 0x80}, {0x00, 0x3D, 0xA6}, {0x00, 0x12, 0xB0}, {0x44, 0x00, 0x96}, {0xA1, 0x00, 0x5E},
+                {0xC7, 0x00, 0x28}, {0xBA, 0x06, 0x00}, {0x8C, 0x17, 0x00}, {0x5C, 0x2F, 0x00}, {0x10, 0x45, 0x00},
+                {0x05, 0x4A, 0x00}, {0x00, 0x47, 0x2E}, {0x00, 0x41, 0x66}, {0x00, 0x00, 0x00}, {0x05, 0x05, 0x05},
+                {0x05, 0x05, 0x05}, {0xC7, 0xC7, 0xC7}, {0x00, 0x77, 0xFF}, {0x21, 0x55, 0xFF}, {0x82, 0x37, 0xFA},
+                {0xEB, 0x2F, 0xB5}, {0xFF, 0x29, 0x50}, {0xFF, 0x22, 0x00}, {0xD6, 0x32, 0x00}, {0xC4, 0x62, 0x00},
+                {0x35, 0x80, 0x00}, {0x05, 0x8F, 0x00}, {0x00, 0x8A, 0x55}, {0x00, 0x99, 0xCC}, {0x21, 0x21, 0x21},
+                {0x09, 0x09, 0x09}, {0x09, 0x09, 0x09}, {0xFF, 0xFF, 0xFF}, {0x0F, 0xD7, 0xFF}, {0x69, 0xA2, 0xFF},
+                {0xD4, 0x80, 0xFF}, {0xFF, 0x45, 0xF3}, {0xFF, 0x61, 0x8B}, {0xFF, 0x88, 0x33}, {0xFF, 0x9C, 0x12},
+                {0xFA, 0xBC, 0x20}, {0x9F, 0xE3, 0x0E}, {0x2B, 0xF0, 0x35}, {0x0C, 0xF0, 0xA4}, {0x05, 0xFB, 0xFF},
+                {0x5E, 0x5E, 0x5E}, {0x0D, 0x0D, 0x0D}, {0x0D, 0x0D, 0x0D}, {0xFF, 0xFF, 0xFF}, {0xA6, 0xFC, 0xFF},
+                {0xB3, 0xEC, 0xFF}, {0xDA, 0xAB, 0xEB}, {0xFF, 0xA8, 0xF9}, {0xFF, 0xAB, 0xB3}, {0xFF, 0xD2, 0xB0},
+                {0xFF, 0xEF, 0xA6}, {0xFF, 0xF7, 0x9C}, {0xD7, 0xE8, 0x95}, {0xA6, 0xED, 0xAF}, {0xA2, 0xF2, 0xDA},
+                {0x99, 0xFF, 0xFC}, {0xDD, 0xDD, 0xDD}, {0x11, 0x11, 0x11}, {0x11, 0x11, 0x11}
+        };
+    }
+
+    /**
+     * System palette rgb components(moved from {@code Render#getSysPalette()}), user palette(e.g. edited by palette
+     * dialog) is changed in place and {@link #update()} must be called after that, or given to {@link #load(int[][])}.
+     */
+    @Getter
+    private final int[][] sysPalette;
+    //Packed rgb indexed by emphasis << 6 | color
+    @Getter
+    private final int[] table;
+    //Palette ram
+    private final byte[] palette;
+    //Palette ram entry resolved rgb value
+    @Getter
+    private final int[] colors;
+    @Getter
+    private final FrameFormat format;
+    //Greyscale and emphasis bits used by resolved colors
+    private int mask;
+
+    public PaletteTable(byte[] palette, FrameFormat format) {
+        this.format = format;
+        this.palette = palette;
+        this.table = new int[8 * 64];
+        this.colors = new int[palette.length];
+        this.sysPalette = new int[DEF_SYS_PALETTE.length][];
+
+        for (int i = 0; i < DEF_SYS_PALETTE.length; i++) {
+            var src = DEF_SYS_PALETTE[i];
+            var dst = new int[src.length];
+            System.arraycopy(src, 0, dst, 0, dst.length);
+            this.sysPalette[i] = dst;
+        }
+
+        this.update();
+    }
+
+    /**
+     * Replace system palette with a copy of {@code palette} and rebuild color table
+     *
+     * @param palette 64 rgb components
+     */
+    public void load(int[][] palette) {
+        if (palette.length != this.sysPalette.length) {
+            throw new RuntimeException("System palette required " + this.sysPalette.length + " colors.");
+        }
+        for (var i = 0; i < palette.length; i++) {
+            System.arraycopy(palette[i], 0, this.sysPalette[i], 0, this.sysPalette[i].length);
+        }
+        this.update();
+    }
+
+    /**
+     * System palette was changed, rebuild color table and resolve all palette ram entries again
+     */
+    public void update() {
+        for (var emphasis = 0; emphasis < 8; emphasis++) {
+            for (var i = 0; i < 64; i++) {
+                var rgb = this.sysPalette[i];
+                var r = (double) rgb[0];
+                var g = (double) rgb[1];
+                var b = (double) rgb[2];
+                //Black column $xE-$xF isn't affected by emphasis
+                if ((i & 0x0e) != 0x0e) {
+                    if ((emphasis & 0x01) != 0) {
+                        g *= ATTENUATION;
+                        b *= ATTENUATION;
+                    }
+                    if ((emphasis & 0x02) != 0) {
+                        r *= ATTENUATION;
+                        b *= ATTENUATION;
+                    }
+                    if ((emphasis & 0x04) != 0) {
+                        r *= ATTENUATION;
+                        g *= ATTENUATION;
+                    }
+                }
+                this.table[emphasis << 6 | i] = (int) r << 16 | (int) g << 8 | (int) b;
+            }
+        }
+        this.resolve();
+    }
+
+    /**
+     * Palette ram entry was written
+     *
+     * @param index Palette ram index after mirror
+     */
+    public void write(int index) {
+        this.colors[index] = this.color(this.palette[index]);
+    }
+
+    /**
+     * PPUMASK was written, resolve all palette ram entries again if greyscale or emphasis changed
+     *
+     * @param bits PPUMASK value
+     */
+    public void mask(byte bits) {
+        var mask = bits & MASK_BITS;
+        if (mask != this.mask) {
+            this.mask = mask;
+            this.resolve();
+        }
+    }
+
+    private void resolve() {
+        for (var i = 0; i < this.colors.length; i++) {
+            this.write(i);
+        }
+    }
+
+    private int color(byte value) {
+        var idx = value & 0x3f;
+        //Greyscale only use colors from grey column
+        if ((this.mask & 0x01) != 0) {
+            idx &= 0x30;
+        }
+        var index = (this.mask >> 5) << 6 | idx;
+        return this.format == FrameFormat.INDEXED ? INDEXED | index : this.table[index];
+    }
+}
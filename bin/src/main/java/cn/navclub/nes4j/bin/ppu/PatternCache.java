@@ -0,0 +1,78 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.core.Mapper;
+import lombok.Getter;
+
+/**
+ * <p>
+ * Decoded pattern table tile cache. Each 8x8 tile is decoded once to 64 two bits pixel value(low plane bit 0, high
+ * plane bit 1) in row order, and a horizontal flipped copy for sprite, so render copy pixel row instead of shift
+ * two plane bytes bit by bit.
+ * </p>
+ * <p>
+ * Tile is keyed by ch-rom offset instead of ppu address, bank switch only change which tile ppu address resolved
+ * to through {@link Mapper#getCHRPages()}, decoded tiles are still valid. Only write to ch-ram invalidate target
+ * tile.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class PatternCache {
+    private final byte[] chrom;
+    private final int[] pages;
+    //Whether tile was decoded
+    private final boolean[] decoded;
+    @Getter
+    private final byte[] pixels;
+    //Horizontal flipped pixels
+    @Getter
+    private final byte[] flipped;
+
+    public PatternCache(Mapper mapper) {
+        var tiles = mapper.getChrom().length / 16;
+        this.chrom = mapper.getChrom();
+        this.pages = mapper.getCHRPages();
+        this.decoded = new boolean[tiles];
+        this.pixels = new byte[tiles * 64];
+        this.flipped = new byte[tiles * 64];
+    }
+
+    /**
+     * Get decoded pixel row of target pattern address
+     *
+     * @param address Ppu pattern address, tile * 16 + fine y(either plane)
+     * @return Offset of row first pixel in {@link #getPixels()} and {@link #getFlipped()}
+     */
+    public int row(int address) {
+        var offset = this.pages[address / 0x400] + address % 0x400;
+        var tile = offset >> 4;
+        if (!this.decoded[tile]) {
+            this.decode(tile);
+        }
+        return tile << 6 | (offset & 0x07) << 3;
+    }
+
+    private void decode(int tile) {
+        var base = tile << 4;
+        for (var y = 0; y < 8; y++) {
+            var lower = this.chrom[base + y];
+            var upper = this.chrom[base + y + 8];
+            var row = tile << 6 | y << 3;
+            for (var x = 0; x < 8; x++) {
+                var value = (byte) (((lower >> (7 - x)) & 0x01) | ((upper >> (7 - x)) & 0x01) << 1);
+                this.pixels[row + x] = value;
+                this.flipped[row + 7 - x] = value;
+            }
+        }
+        this.decoded[tile] = true;
+    }
+
+    /**
+     * Ch-ram was written, decode target tile again when next used
+     *
+     * @param offset Ch-rom offset
+     */
+    public void invalidate(int offset) {
+        this.decoded[offset >> 4] = false;
+    }
+}
@@ -1,5 +1,6 @@
 package cn.navclub.nes4j.bin.ppu;
 
+import cn.navclub.nes4j.bin.config.FrameFormat;
 import cn.navclub.nes4j.bin.config.NMapper;
 import cn.navclub.nes4j.bin.config.PStatus;
 import cn.navclub.nes4j.bin.function.CycleDriver;
@@ -39,39 +40,17 @@ import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
  * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
  */
 public class Render implements CycleDriver {
-    private static final int[][] DEF_SYS_PALETTE;
-
-    static {
-        DEF_SYS_PALETTE = new int[][]{
-                {0x80, 0x80, 0x80}, {0x00, 0x3D, 0xA6}, {0x00, 0x12, 0xB0}, {0x44, 0x00, 0x96}, {0xA1, 0x00, 0x5E},
-                {0xC7, 0x00, 0x28}, {0xBA, 0x06, 0x00}, {0x8C, 0x17, 0x00}, {0x5C, 0x2F, 0x00}, {0x10, 0x45, 0x00},
-                {0x05, 0x4A, 0x00}, {0x00, 0x47, 0x2E}, {0x00, 0x41, 0x66}, {0x00, 0x00, 0x00}, {0x05, 0x05, 0x05},
-                {0x05, 0x05, 0x05}, {0xC7, 0xC7, 0xC7}, {0x00, 0x77, 0xFF}, {0x21, 0x55, 0xFF}, {0x82, 0x37, 0xFA},
-                {0xEB, 0x2F, 0xB5}, {0xFF, 0x29, 0x50}, {0xFF, 0x22, 0x00}, {0xD6, 0x32, 0x00}, {0xC4, 0x62, 0x00},
-                {0x35, 0x80, 0x00}, {0x05, 0x8F, 0x00}, {0x00, 0x8A, 0x55}, {0x00, 0x99, 0xCC}, {0x21, 0x21, 0x21},
-                {0x09, 0x09, 0x09}, {0x09, 0x09, 0x09}, {0xFF, 0xFF, 0xFF}, {0x0F, 0xD7, 0xFF}, {0x69, 0xA2, 0xFF},
-                {0xD4, 0x80, 0xFF}, {0xFF, 0x45, 0xF3}, {0xFF, 0x61, 0x8B}, {0xFF, 0x88, 0x33}, {0xFF, 0x9C, 0x12},
-                {0xFA, 0xBC, 0x20}, {0x9F, 0xE3, 0x0E}, {0x2B, 0xF0, 0x35}, {0x0C, 0xF0, 0xA4}, {0x05, 0xFB, 0xFF},
-                {0x5E, 0x5E, 0x5E}, {0x0D, 0x0D, 0x0D}, {0x0D, 0x0D, 0x0D}, {0xFF, 0xFF, 0xFF}, {0xA6, 0xFC, 0xFF},
-                {0xB3, 0xEC, 0xFF}, {0xDA, 0xAB, 0xEB}, {0xFF, 0xA8, 0xF9}, {0xFF, 0xAB, 0xB3}, {0xFF, 0xD2, 0xB0},
-                {0xFF, 0xEF, 0xA6}, {0xFF, 0xF7, 0x9C}, {0xD7, 0xE8, 0x95}, {0xA6, 0xED, 0xAF}, {0xA2, 0xF2, 0xDA},
-                {0x99, 0xFF, 0xFC}, {0xDD, 0xDD, 0xDD}, {0x11, 0x11, 0x11}, {0x11, 0x11, 0x11}
-        };
-    }
-
-    @Getter
-    private final int[][] sysPalette;
-    private final PPU ppu;
-    private final Frame frame;
-    private final PPUMask mask;
+    protected final PPU ppu;
+    protected final Frame frame;
+    protected final PPUMask mask;
     // Name table byte
     private int tileIdx;
     // Attribute table byte
     private int tileAttr;
-    //Pattern table tile low
-    private int leftByte;
-    //Pattern table tile high (+8 bytes from pattern table tile low)
-    private int rightByte;
+    //Pattern table tile low row offset in decoded pattern cache
+    private int leftRow;
+    //Pattern table tile high (+8 bytes from pattern table tile low) row offset in decoded pattern cache
+    private int rightRow;
 
     protected int cycles;
     //Record current scan line index
@@ -89,44 +68,47 @@ public class Render implements CycleDriver {
     // |++++++---------------------------------------------- Sprite index
     // +---------------------------------------------------- Priority (0: in front of background; 1: behind background)
     //
-    private final int[] foreground;
-    //sprite palette
-    private final byte[] spritePalette;
+    protected final int[] foreground;
+    //Sprite zero x coordinate on next scanline,-1 if sprite zero not fall on it
+    protected int zeroX;
+    //Pattern table address line A12 of next scanline sprite fetch,unused slot fetch tile $FF
+    protected int spriteA12;
+    //Whether foreground contain no sprite pixel,zero initialized foreground isn't blank
+    private boolean blank;
     // Background pixel
     private final int[] background;
-    //background palette
-    private final byte[] backgroundPalette;
     //Background pixel shift
     private int shift;
     //Record product frame counter
     protected long frames;
     //Whether odd frame
-    private boolean odd;
+    protected boolean odd;
+    //Skip pixel composition of current frame,only sprite zero hit is tested
+    protected boolean skip;
+    //Frames drawn dot by dot
+    @Getter
+    private long dotFrames;
+    //Frames drawn scanline by scanline
+    @Getter
+    private long scanlineFrames;
 
     public Render(PPU ppu) {
         this.ppu = ppu;
         this.mask = ppu.mask;
-        this.frame = new Frame();
+        this.frame = ppu.palettes.getFormat() == FrameFormat.INDEXED
+                ? new IndexedFrame(ppu.palettes.getTable()) : new Frame();
 
         this.background = new int[16];
         this.foreground = new int[256];
-
-        this.spritePalette = new byte[3];
-        this.backgroundPalette = new byte[3];
-
-        this.sysPalette = new int[DEF_SYS_PALETTE.length][];
-
-        for (int i = 0; i < DEF_SYS_PALETTE.length; i++) {
-            var src = DEF_SYS_PALETTE[i];
-            var dst = new int[src.length];
-            System.arraycopy(src, 0, dst, 0, dst.length);
-            this.sysPalette[i] = dst;
-        }
     }
 
     public void reset() {
+        this.zeroX = -1;
+        this.skip = false;
         this.cycles = 0;
         this.frames = 0L;
+        this.dotFrames = 0L;
+        this.scanlineFrames = 0L;
         this.frame.clear();
         this.scanline = 240;
     }
@@ -144,13 +126,17 @@ public class Render implements CycleDriver {
         //
         if (this.scanline == 241 && this.cycles == 1) {
             this.frames++;
+            if (this.dotPath()) {
+                this.dotFrames++;
+            } else {
+                this.scanlineFrames++;
+            }
             this.odd = ((frames & 0x01) == 0x01);
             //Move to next scanline must reset shift
             this.shift = 0;
             this.ppu.fireNMI();
-            this.ppu.console.videoOutput(System.nanoTime(), this.mask.enableRender(), this.frame);
-            //Check and pause some time to keep 60 fps
-            this.ppu.calVideoPauseTime(System.nanoTime());
+            //Frame is output and paced by game loop after current instruction, PPU never wait itself
+            this.ppu.console.frameEnd(this.mask.enableRender() && !this.skip, this.frame);
         }
 
         //
@@ -192,6 +178,39 @@ public class Render implements CycleDriver {
         }
     }
 
+    /**
+     * Count PPU dots from current position to vblank start (scanline 241 dot 1). Odd frame skipped dot is
+     * ignored so result may be one dot greater than real value.
+     */
+    protected int dotsToVBlank() {
+        var dots = (241 * 341 + 1) - (this.scanline * 341 + this.cycles);
+        if (dots < 0) {
+            dots += 262 * 341;
+        }
+        return dots;
+    }
+
+    /**
+     * Whether current frame is drawn dot by dot
+     */
+    protected boolean dotPath() {
+        return true;
+    }
+
+    /**
+     * Register, palette, pattern table or mirroring state used by render is being changed by CPU or mapper
+     */
+    protected void rasterChanged() {
+
+    }
+
+    /**
+     * Count PPU dots from current position to next dot CPU must synchronize with PPU.
+     */
+    protected int dotsToEvent() {
+        return this.dotsToVBlank();
+    }
+
     public void render() {
         //
         // Pre-render scanline (-1 or 261)
@@ -282,7 +301,11 @@ public class Render implements CycleDriver {
         var fetchCycle = preFetchCycle || visibleCycle;
 
         if (visibleLine && visibleCycle) {
-            this.renderPixel();
+            if (this.skip) {
+                this.spriteZeroPixel();
+            } else {
+                this.renderPixel();
+            }
         }
 
         if (fetchCycle) {
@@ -307,20 +330,7 @@ public class Render implements CycleDriver {
 
 
         if (this.cycles == 257) {
-            // Sprite evaluation does not happen on the pre-render scanline. Because evaluation applies to the next
-            // line's sprite rendering, no sprites will be rendered on the first scanline, and this is why there is
-            // a 1 line offset on a sprite's Y coordinate.
-            if (!preLine) {
-                this.spriteEval();
-            } else {
-                Arrays.fill(this.foreground, 0, this.foreground.length, -1);
-            }
-            //
-            // At dot 257 of each scanline
-            // If rendering is enabled, the PPU copies all bits related to horizontal position from t to v:
-            // v: ....A.. ...BCDEF <- t: ....A.. ...BCDEF
-            //
-            this.ppu.v = uint16((this.ppu.v & 0xfbe0) | (this.ppu.t & 0x041f));
+            this.hblank(preLine);
         }
 
         //
@@ -334,6 +344,38 @@ public class Render implements CycleDriver {
         }
     }
 
+    /**
+     * Dot 257, evaluate next scanline sprites and reload horizontal position of v.
+     */
+    protected void hblank(boolean preLine) {
+        // Sprite evaluation does not happen on the pre-render scanline. Because evaluation applies to the next
+        // line's sprite rendering, no sprites will be rendered on the first scanline, and this is why there is
+        // a 1 line offset on a sprite's Y coordinate.
+        if (!preLine) {
+            this.spriteEval();
+        } else {
+            this.zeroX = -1;
+            this.spriteA12 = this.ppu.ctr.spriteSize() == 0x10 ? 0x1000 : this.ppu.ctr.spritePattern8();
+            this.clearForeground();
+        }
+        //
+        // At dot 257 of each scanline
+        // If rendering is enabled, the PPU copies all bits related to horizontal position from t to v:
+        // v: ....A.. ...BCDEF <- t: ....A.. ...BCDEF
+        //
+        this.ppu.v = uint16((this.ppu.v & 0xfbe0) | (this.ppu.t & 0x041f));
+    }
+
+    /**
+     * Clear sprite pixel of foreground, skipped if no sprite pixel was written since last clear
+     */
+    private void clearForeground() {
+        if (!this.blank) {
+            Arrays.fill(this.foreground, 0, this.foreground.length, -1);
+            this.blank = true;
+        }
+    }
+
     private void tileMut() {
         //Copy upper 8 byte to lower 8 byte
         System.arraycopy(this.background, 8, this.background, 0, 8);
@@ -361,23 +403,15 @@ public class Render implements CycleDriver {
         //Because first color was transparent so add 1
         var idx = 1 + ((this.tileAttr >> shift) & 0x03) * 4;
 
-        this.backgroundPalette[0] = this.ppu.palette[idx];
-        this.backgroundPalette[1] = this.ppu.palette[idx + 1];
-        this.backgroundPalette[2] = this.ppu.palette[idx + 2];
+        var colors = this.ppu.palettes.getColors();
+        //Negative transparent otherwise opaque
+        var transparent = 0x80000000 | colors[0];
 
+        var pixels = this.ppu.patterns.getPixels();
         for (int i = 0; i < 8; i++) {
-            var lower = (this.leftByte >> (7 - i)) & 0x01;
-            var upper = (this.rightByte >> (7 - i)) & 0x01;
-            var k = (lower | upper << 1);
-            var color = switch (k) {
-                case 1 -> this.rgbValue(this.backgroundPalette[0]);
-                case 2 -> this.rgbValue(this.backgroundPalette[1]);
-                case 3 -> this.rgbValue(this.backgroundPalette[2]);
-                default -> this.rgbValue(ppu.palette[0]);
-            };
-            //Negative transparent otherwise opaque
-            var value = (k == 0 ? 0x80000000 : 0) | color;
-            this.background[i + 8] = value;
+            //Low plane bit from low byte fetch,high plane bit from high byte fetch
+            var k = (pixels[this.leftRow + i] & 0x01) | (pixels[this.rightRow + i] & 0x02);
+            this.background[i + 8] = k == 0 ? transparent : colors[idx + k - 1];
         }
         this.shift = 0;
         this.incX();
@@ -445,9 +479,9 @@ public class Render implements CycleDriver {
         var table = ppu.ctr.backgroundNameTable();
         var address = table + this.tileIdx * 16 + fineY;
         if (!high) {
-            this.leftByte = this.ppu.fetchScanlineData(address);
+            this.leftRow = this.ppu.patterns.row(address);
         } else {
-            this.rightByte = this.ppu.fetchScanlineData(address + 8);
+            this.rightRow = this.ppu.patterns.row(address + 8);
         }
     }
 
@@ -492,7 +526,7 @@ public class Render implements CycleDriver {
      * attribute data will appear before the nametable's tile data is reached. (Some games use this to move the
      * top of the nametable out of the <a href="https://www.nesdev.org/wiki/Overscan">Overscan</a> area.)
      */
-    private void incY() {
+    protected void incY() {
         var v = this.ppu.v;
         // if fine Y < 7
         if ((v & 0x7000) != 0x7000) {
@@ -544,7 +578,7 @@ public class Render implements CycleDriver {
         //Sprite color
         var forground = this.foreground[x];
         //Fetch background pixel,default is transparent color
-        var pixel = rgbValue(this.ppu.palette[0]);
+        var pixel = this.ppu.palettes.getColors()[0];
         var background = this.background[this.ppu.x + this.shift++];
         //Whether show sprite in position(x,y)
         var showSprite = (forground != -1 && this.mask.showSprite() && this.mask.showLeftMostSprite(x));
@@ -573,93 +607,113 @@ public class Render implements CycleDriver {
         this.frame.update(x, y, pixel);
     }
 
+    /**
+     * Same sprite zero hit test as {@link #renderPixel()} without pixel composition
+     */
+    private void spriteZeroPixel() {
+        var x = this.cycles - 1;
+        var forground = this.foreground[x];
+        var background = this.background[this.ppu.x + this.shift++];
+        if (forground == -1 || ((forground >> 24) & 0x3f) != 0) {
+            return;
+        }
+        if (this.mask.showSprite() && this.mask.showLeftMostSprite(x)
+                && this.mask.showBackground() && this.mask.showLeftMostBackground(x) && background > 0 && x < 255) {
+            this.ppu.status.set(PStatus.SPRITE_ZERO_HIT);
+        }
+    }
+
     /**
      * <a href="https://www.nesdev.org/wiki/PPU_sprite_evaluation">Sprite Evaluation</a>
      */
     private void spriteEval() {
-        Arrays.fill(this.foreground, 0, this.foreground.length, -1);
+        var count = this.ppu.sprites.count(this.scanline);
+        this.clearForeground();
 
-        var count = 0;
+        var a12 = 0;
+        this.zeroX = -1;
         var size = this.ppu.ctr.spriteSize();
-        for (var i = 0; i < 64; i++) {
+        for (var n = 0; n < Math.min(count, SpriteBuckets.MAX_SPRITES); n++) {
+            var i = this.ppu.sprites.sprite(this.scanline, n);
             var offset = i * 4;
-            var y = uint8(this.ppu.oam[offset]);
-            var df = this.scanline - y;
-            //Whether sprite fall on current scanline
-            if (df < 0 || df >= size) {
-                continue;
-            }
-            if (count < 8) {
-                var x = uint8(this.ppu.oam[offset + 3]);
-                var idx = uint8(this.ppu.oam[offset + 1]);
-                var attr = uint8(this.ppu.oam[offset + 2]);
-                //Indicates whether to flip the sprite horizontally.
-                var hf = ((attr >> 6) & 0x01) == 1;
-                //Indicates whether to flip the sprite vertically.
-                var vf = ((attr >> 7) & 0x01) == 1;
-
-                var bank = 0;
-                var address = 0;
-
-                //When sprite size is 8*16
-                if (size == 0x10) {
-                    bank = this.ppu.ctr.spritePattern16(idx);
-                    if (vf) {
-                        df = 15 - df;
-                    }
-                    idx &= 0xfe;
-                    if (df > 7) {
-                        idx++;
-                        df -= 8;
-                    }
-                } else {
-                    bank = this.ppu.ctr.spritePattern8();
-                    if (vf) {
-                        df = 7 - df;
-                    }
+            var df = this.scanline - uint8(this.ppu.oam[offset]);
+            var x = uint8(this.ppu.oam[offset + 3]);
+            var idx = uint8(this.ppu.oam[offset + 1]);
+            var attr = uint8(this.ppu.oam[offset + 2]);
+            //Indicates whether to flip the sprite horizontally.
+            var hf = ((attr >> 6) & 0x01) == 1;
+            //Indicates whether to flip the sprite vertically.
+            var vf = ((attr >> 7) & 0x01) == 1;
+
+            var bank = 0;
+            var address = 0;
+
+            //When sprite size is 8*16
+            if (size == 0x10) {
+                bank = this.ppu.ctr.spritePattern16(idx);
+                if (vf) {
+                    df = 15 - df;
+                }
+                idx &= 0xfe;
+                if (df > 7) {
+                    idx++;
+                    df -= 8;
+                }
+            } else {
+                bank = this.ppu.ctr.spritePattern8();
+                if (vf) {
+                    df = 7 - df;
                 }
+            }
 
-                address = bank + idx * 16 + df;
+            a12 |= bank;
+            //Sprite zero is always first sprite of scanline, other sprite pixel is only used to composite
+            if (this.skip && i != 0) {
+                continue;
+            }
+            address = bank + idx * 16 + df;
 
-                var l = uint8(this.ppu.fetchScanlineData(address));
-                var r = uint8(this.ppu.fetchScanlineData(address + 8));
+            var row = this.ppu.patterns.row(address);
+            var pixels = hf ? this.ppu.patterns.getFlipped() : this.ppu.patterns.getPixels();
+            var colors = this.ppu.palettes.getColors();
 
-                //Faster copy palette data
-                System.arraycopy(ppu.palette, 0x11 + (attr & 0x03) * 4, this.spritePalette, 0, 3);
+            if (i == 0) {
+                this.zeroX = x;
+            }
 
-                for (int j = 0; j < 8; j++) {
-                    var lower = (l >> (7 - j)) & 0x01;
-                    var upper = (r >> (7 - j)) & 0x01;
-                    var k = (lower | upper << 1);
+            //Sprite palette start at $3F11,first color was transparent
+            var palette = 0x10 + (attr & 0x03) * 4;
 
-                    var index = x + (hf ? (7 - j) : j);
+            for (int j = 0; j < 8; j++) {
+                var k = pixels[row + j];
+                var index = x + j;
 
-                    if (k == 0 || index >= this.foreground.length) {
-                        continue;
-                    }
+                if (k == 0 || index >= this.foreground.length) {
+                    continue;
+                }
 
-                    var b = rgbValue(this.spritePalette[k - 1]);
+                var b = colors[palette + k];
 
-                    //Sprite index
-                    b |= ((i & 0x3f) << 24);
-                    //Prior
-                    b |= ((attr & 0x20) << 25);
+                //Sprite index
+                b |= ((i & 0x3f) << 24);
+                //Prior
+                b |= ((attr & 0x20) << 25);
 
-                    var value = this.foreground[index];
-                    if (value == -1) {
-                        this.foreground[index] = b;
-                    }
+                var value = this.foreground[index];
+                if (value == -1) {
+                    this.foreground[index] = b;
                 }
             }
-            count++;
+        }
+        if (count > 0) {
+            this.blank = false;
         }
         if (count > 8) {
             this.ppu.status.set(PStatus.SPRITE_OVERFLOW);
         }
-    }
-
-    private int rgbValue(byte idx) {
-        var arr = sysPalette[idx & 0x3f];
-        return arr[0] << 16 | arr[1] << 8 | arr[2];
+        if (count < 8) {
+            a12 |= size == 0x10 ? 0x1000 : this.ppu.ctr.spritePattern8();
+        }
+        this.spriteA12 = a12;
     }
 }
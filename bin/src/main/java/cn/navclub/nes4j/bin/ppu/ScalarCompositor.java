@@ -0,0 +1,29 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.ppu.register.PPUMask;
+
+/**
+ * Pixel by pixel compositor, used when vector api isn't available.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class ScalarCompositor implements LineCompositor {
+    @Override
+    public void composite(int[] background, int fineX, int[] foreground, int backdrop, PPUMask mask, int[] line) {
+        var showBackground = mask.showBackground();
+        var showSprite = mask.showSprite();
+        for (var x = 0; x < Frame.width; x++) {
+            var pixel = backdrop;
+            if (showBackground && mask.showLeftMostBackground(x)) {
+                pixel = background[x + fineX];
+            }
+            var value = foreground[x];
+            //If sprite priority or background is transparent
+            if (value != -1 && showSprite && mask.showLeftMostSprite(x)
+                    && ((value >> 30 & 0x01) == 0 || pixel < 0)) {
+                pixel = value & 0xffffff;
+            }
+            line[x] = pixel | (0xff << 24);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.config.PStatus;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.uint16;
+
+/**
+ * <p>
+ * Scanline based render, instead of fetch tile and output pixel every dot, whole visible scanline is drawn at dot
+ * 256 use scroll(v and fine x), pattern table and palette state of that time. Frame timing, vblank, sprite
+ * evaluation and v register update happen at same dot as {@link Render}, so game only observe mid-scanline
+ * raster effect difference.
+ * </p>
+ * <p>
+ * Sprite zero hit dot is predicted at beginning of scanline and flag is set at that dot, MMC3 A12 rising edge
+ * is simulated at dot 260(sprite fetch) and dot 321(next scanline background fetch).
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class ScanlineRender extends Render {
+    //33 tiles because fine x scroll may shift in 8 pixel of next tile
+    private final int[] line;
+    //Composited argb pixels of current scanline
+    private final int[] pixels;
+    private final LineCompositor compositor;
+    //Dot sprite zero hit flag set on current scanline,-1 if not hit
+    private int hit;
+
+    public ScanlineRender(PPU ppu) {
+        super(ppu);
+        this.line = new int[33 * 8];
+        this.pixels = new int[Frame.width];
+        this.compositor = LineCompositor.create();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        this.hit = -1;
+    }
+
+    @Override
+    public void render() {
+        var preLine = this.scanline == 261;
+        if (!preLine && this.scanline >= 240) {
+            return;
+        }
+        switch (this.cycles) {
+            case 1 -> {
+                if (!preLine) {
+                    this.hit = this.zeroHit();
+                }
+            }
+            case 256 -> {
+                if (!preLine && !this.skip) {
+                    this.drawLine();
+                }
+                this.incY();
+            }
+            case 257 -> {
+                this.hit = -1;
+                this.hblank(preLine);
+            }
+            case 260 -> this.ppu.setBusAddr(this.spriteA12);
+            case 321 -> this.ppu.setBusAddr(this.ppu.ctr.backgroundNameTable());
+        }
+        if (this.cycles == this.hit) {
+            this.ppu.status.set(PStatus.SPRITE_ZERO_HIT);
+        }
+        //Vertical bits of v are reloaded from t during dot 280 to 304 of pre-render scanline
+        if (preLine && this.cycles >= 280 && this.cycles <= 304) {
+            this.ppu.v = uint16((this.ppu.v & 0x841f) | (this.ppu.t & 0x7be0));
+        }
+    }
+
+    /**
+     * Dot by dot render of {@link Render}, used by {@link AutoRender} after raster effect detected
+     */
+    protected final void renderDot() {
+        super.render();
+    }
+
+    @Override
+    protected boolean dotPath() {
+        return false;
+    }
+
+    /**
+     * When mapper count scanline by A12, CPU must catch up PPU at every possible rising edge so IRQ is
+     * delivered in time.
+     */
+    @Override
+    protected int dotsToEvent() {
+        var dots = this.dotsToVBlank();
+        if (!this.ppu.console.getMapper().scanlineIRQ()) {
+            return dots;
+        }
+        var line = this.scanline;
+        var dot = this.cycles;
+        var count = 0;
+        while (count < dots) {
+            if (line < 240 || line == 261) {
+                if (dot < 260) {
+                    return count + 260 - dot;
+                }
+                if (dot < 321) {
+                    return count + 321 - dot;
+                }
+            }
+            //Odd frame skip last dot of pre-render scanline
+            count += (line == 261 && this.odd && this.mask.enableRender() ? 340 : 341) - dot;
+            dot = 0;
+            line = (line + 1) % 262;
+        }
+        return dots;
+    }
+
+    /**
+     * Predict which dot sprite zero hit happen on current scanline, only opaque pixel of sprite zero and
+     * background are checked.
+     *
+     * @return Hit dot, if not hit return {@code -1}
+     */
+    private int zeroHit() {
+        if (this.zeroX == -1 || !this.mask.showBackground() || !this.mask.showSprite()) {
+            return -1;
+        }
+        var end = Math.min(this.zeroX + 8, 255);
+        for (var x = this.zeroX; x < end; x++) {
+            var value = this.foreground[x];
+            if (value == -1 || ((value >> 24) & 0x3f) != 0) {
+                continue;
+            }
+            if (this.mask.showLeftMostSprite(x) && this.mask.showLeftMostBackground(x) && this.opaque(x)) {
+                return x + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether background pixel at target x of current scanline is opaque
+     */
+    private boolean opaque(int x) {
+        var v = this.ppu.v;
+        var pos = x + this.ppu.x;
+        var coarseX = (v & 0x1f) + (pos >> 3);
+        if (coarseX > 31) {
+            v ^= 0x0400;
+        }
+        v = (v & ~0x1f) | (coarseX & 0x1f);
+        var tile = this.ppu.fetchScanlineData(0x2000 | (v & 0x0fff));
+        var row = this.ppu.patterns.row(this.ppu.ctr.backgroundNameTable() + tile * 16 + ((v >> 12) & 0x07));
+        return this.ppu.patterns.getPixels()[row + (pos & 0x07)] != 0;
+    }
+
+    private void drawLine() {
+        if (this.mask.showBackground()) {
+            this.fetchLine();
+        }
+        var backdrop = this.ppu.palettes.getColors()[0];
+        this.compositor.composite(this.line, this.ppu.x, this.foreground, backdrop, this.mask, this.pixels);
+        this.frame.update(this.scanline, this.pixels);
+    }
+
+    /**
+     * Fetch 33 background tiles start from v, transparent pixel is negative.
+     */
+    private void fetchLine() {
+        var v = this.ppu.v;
+        var colors = this.ppu.palettes.getColors();
+        var transparent = 0x80000000 | colors[0];
+        var pixels = this.ppu.patterns.getPixels();
+        var table = this.ppu.ctr.backgroundNameTable() + ((v >> 12) & 0x07);
+        for (var i = 0; i < 33; i++) {
+            var tile = this.ppu.fetchScanlineData(0x2000 | (v & 0x0fff));
+            var attr = this.ppu.fetchScanlineData(0x23c0 | (v & 0x0c00) | (v >> 4) & 0x38 | (v >> 2) & 0x07);
+            var row = this.ppu.patterns.row(table + tile * 16);
+
+            var shift = ((v & 0x1f) % 4) / 2 << 1 | (((v >> 5) & 0x1f) % 4) / 2 << 2;
+            //Because first color was transparent so add 1
+            var idx = 1 + ((attr >> shift) & 0x03) * 4;
+
+            for (var j = 0; j < 8; j++) {
+                var k = pixels[row + j];
+                this.line[i * 8 + j] = k == 0 ? transparent : colors[idx + k - 1];
+            }
+            //Increase coarse x, switch horizontal name table when overflow
+            if ((v & 0x1f) == 31) {
+                v = (v & ~0x001f) ^ 0x0400;
+            } else {
+                v++;
+            }
+        }
+    }
+}
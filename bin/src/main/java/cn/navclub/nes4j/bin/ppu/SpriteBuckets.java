@@ -0,0 +1,98 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.ppu.register.PPUControl;
+
+import java.util.Arrays;
+
+import static cn.navclub.nes4j.bin.util.BinUtil.uint8;
+
+/**
+ * <p>
+ * Per-scanline sprite list of OAM, record first 8 sprites(OAM order) and total sprite count which fall on every
+ * scanline, so sprite evaluation only visit sprites of that scanline instead of scan all 64 OAM entries.
+ * </p>
+ * <p>
+ * Only sprite y coordinate and sprite size decide which scanline sprite fall on, list is marked dirty when y
+ * byte changed by OAMDATA($2004), OAM DMA($4014) or sprite size changed by PPUCTRL, and rebuilt when next
+ * queried.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class SpriteBuckets {
+    //Max sprite count of one scanline
+    public static final int MAX_SPRITES = 8;
+
+    private final byte[] oam;
+    private final PPUControl ctr;
+    //Total sprite count of each scanline include overflow sprites
+    private final int[] counts;
+    //First 8 sprites index of each scanline
+    private final byte[] sprites;
+    //Sprite size when list built
+    private int size;
+    private boolean dirty;
+
+    public SpriteBuckets(byte[] oam, PPUControl ctr) {
+        this.oam = oam;
+        this.ctr = ctr;
+        this.dirty = true;
+        this.counts = new int[256];
+        this.sprites = new byte[256 * MAX_SPRITES];
+    }
+
+    /**
+     * OAM byte will be written by OAMDATA
+     *
+     * @param address OAM address
+     * @param value   New value
+     */
+    public void write(int address, byte value) {
+        if ((address & 0x03) == 0 && this.oam[address] != value) {
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Whole OAM was written by DMA
+     */
+    public void invalidate() {
+        this.dirty = true;
+    }
+
+    /**
+     * Get total sprite count fall on target scanline,may greater than {@link #MAX_SPRITES}
+     */
+    public int count(int scanline) {
+        if (this.dirty || this.size != this.ctr.spriteSize()) {
+            this.rebuild();
+        }
+        return this.counts[scanline];
+    }
+
+    /**
+     * Get OAM index of nth sprite on target scanline
+     *
+     * @param scanline Scanline
+     * @param n        Nth sprite, must less than {@link #MAX_SPRITES} and {@link #count(int)}
+     */
+    public int sprite(int scanline, int n) {
+        return this.sprites[scanline * MAX_SPRITES + n];
+    }
+
+    private void rebuild() {
+        Arrays.fill(this.counts, 0);
+        this.size = this.ctr.spriteSize();
+        for (var i = 0; i < 64; i++) {
+            var y = uint8(this.oam[i * 4]);
+            var end = Math.min(y + this.size, this.counts.length);
+            for (var line = y; line < end; line++) {
+                var n = this.counts[line]++;
+                if (n < MAX_SPRITES) {
+                    this.sprites[line * MAX_SPRITES + n] = (byte) i;
+                }
+            }
+        }
+        this.dirty = false;
+    }
+}
@@ -1,4 +1,5 @@
 import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.ppu.LineCompositor;
 
 module cn.navclub.nes4j.bin {
     requires static lombok;
@@ -18,4 +19,5 @@ module cn.navclub.nes4j.bin {
     exports cn.navclub.nes4j.bin.eventbus;
 
     uses Player;
+    uses LineCompositor;
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package cn.navclub.nes4j.bin;
+
+import cn.navclub.nes4j.bin.config.PaceMode;
+import cn.navclub.nes4j.bin.config.SyncMode;
+import cn.navclub.nes4j.bin.ppu.Frame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import static cn.navclub.nes4j.bin.TestCartridge.ORIGIN;
+import static cn.navclub.nes4j.bin.TestCartridge.write;
+
+/**
+ * {@link SyncMode#CATCH_UP} with or without idle loop skip must run generated cartridge exactly like
+ * {@link SyncMode#LOCKSTEP}: same frames, instruction count and cpu cycles.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class SyncModeTest {
+    private static final int FRAMES = 120;
+
+    private record Result(long crc, long instructions, long cycles, long skipped, int colors) {
+    }
+
+    @Test
+    @Timeout(value = 60, unit = TimeUnit.SECONDS)
+    void sameAsLockstep() {
+        var rom = cartridge();
+        var lockstep = run(rom, SyncMode.LOCKSTEP, true);
+        var catchUp = run(rom, SyncMode.CATCH_UP, false);
+        var idleSkip = run(rom, SyncMode.CATCH_UP, true);
+
+        //Program must render something and idle loop must be skipped, otherwise comparison prove nothing
+        Assertions.assertTrue(lockstep.colors > 1, "blank frame");
+        Assertions.assertEquals(0, catchUp.skipped);
+        Assertions.assertTrue(idleSkip.skipped > 0, "no idle loop skipped");
+
+        for (var result : new Result[]{catchUp, idleSkip}) {
+            Assertions.assertEquals(lockstep.crc, result.crc);
+            Assertions.assertEquals(lockstep.instructions, result.instructions);
+            Assertions.assertEquals(lockstep.cycles, result.cycles);
+        }
+    }
+
+    private static Result run(byte[] rom, SyncMode syncMode, boolean idleSkip) {
+        var crc = new CRC32();
+        var pixels = ByteBuffer.allocate(Frame.width * Frame.height * 4);
+        var colors = new int[1];
+        var count = new int[1];
+        var console = new NesConsole[1];
+        console[0] = TestCartridge.builder(rom)
+                .syncMode(syncMode)
+                .idleSkip(idleSkip)
+                .paceMode(PaceMode.UNTHROTTLED)
+                .hook((fps, enableRender, frame, joyPad, joyPad1) -> {
+                    pixels.clear();
+                    for (var i = 0; i < Frame.width * Frame.height; i++) {
+                        pixels.putInt(frame.getPixel(i));
+                    }
+                    crc.update(pixels.flip());
+                    if (++count[0] >= FRAMES) {
+                        colors[0] = (int) IntStream.range(0, Frame.width * Frame.height)
+                                .map(frame::getPixel)
+                                .distinct()
+                                .count();
+                        console[0].stop();
+                    }
+                })
+                .build();
+        console[0].execute();
+        var cpu = console[0].getCpu();
+        var detector = console[0].getDetector();
+        return new Result(
+                crc.getValue(),
+                cpu.getInstructions(),
+                cpu.getCycles(),
+                detector == null ? 0 : detector.getSkipped(),
+                colors[0]
+        );
+    }
+
+    /**
+     * Program enable NMI and rendering, then main loop move sprites and wait NMI by polling a ram flag. NMI handler
+     * do OAM DMA, scroll background, retune pulse channel and set the flag.
+     */
+    private static byte[] cartridge() {
+        var code = new ByteArrayOutputStream();
+        //SEI, CLD, LDX #$FF, TXS
+        write(code, 0x78, 0xd8, 0xa2, 0xff, 0x9a);
+        //LDA #$00, STA $2000, STA $2001
+        write(code, 0xa9, 0x00, 0x8d, 0x00, 0x20, 0x8d, 0x01, 0x20);
+        //Wait two vblank: BIT $2002, BPL *-3
+        for (var i = 0; i < 2; i++) {
+            var vblank = address(code);
+            write(code, 0x2c, 0x02, 0x20);
+            branch(code, 0x10, vblank);
+        }
+        //Palette $3F00-$3F1F = 0..31
+        write(code, 0xa9, 0x3f, 0x8d, 0x06, 0x20, 0xa9, 0x00, 0x8d, 0x06, 0x20, 0xa2, 0x00);
+        var palette = address(code);
+        //TXA, STA $2007, INX, CPX #$20, BNE palette
+        write(code, 0x8a, 0x8d, 0x07, 0x20, 0xe8, 0xe0, 0x20);
+        branch(code, 0xd0, palette);
+        //Nametable and attribute $2000-$23FF = low byte of offset
+        write(code, 0xa9, 0x20, 0x8d, 0x06, 0x20, 0xa9, 0x00, 0x8d, 0x06, 0x20, 0xa0, 0x04, 0xa2, 0x00);
+        var nametable = address(code);
+        //TXA, STA $2007, INX, BNE nametable, DEY, BNE nametable
+        write(code, 0x8a, 0x8d, 0x07, 0x20, 0xe8);
+        branch(code, 0xd0, nametable);
+        write(code, 0x88);
+        branch(code, 0xd0, nametable);
+        //OAM page $0200-$02FF = low byte of offset
+        write(code, 0xa2, 0x00);
+        var oam = address(code);
+        //TXA, STA $0200,X, INX, BNE oam
+        write(code, 0x8a, 0x9d, 0x00, 0x02, 0xe8);
+        branch(code, 0xd0, oam);
+        //Enable pulse 1 and triangle
+        write(code, 0xa9, 0x0f, 0x8d, 0x15, 0x40);
+        write(code, 0xa9, 0xbf, 0x8d, 0x00, 0x40, 0xa9, 0x80, 0x8d, 0x02, 0x40, 0xa9, 0x01, 0x8d, 0x03, 0x40);
+        write(code, 0xa9, 0xff, 0x8d, 0x08, 0x40, 0xa9, 0x40, 0x8d, 0x0a, 0x40, 0xa9, 0x09, 0x8d, 0x0b, 0x40);
+        //Clear flag $20 and counter $21, enable NMI and rendering
+        write(code, 0xa9, 0x00, 0x85, 0x20, 0x85, 0x21);
+        write(code, 0xa9, 0x80, 0x8d, 0x00, 0x20, 0xa9, 0x1e, 0x8d, 0x01, 0x20);
+
+        var main = address(code);
+        //Move 64 sprite bytes: LDX #$40, LDA $0200,X, CLC, ADC #$01, STA $0200,X, DEX, BNE *-9
+        write(code, 0xa2, 0x40);
+        var move = address(code);
+        write(code, 0xbd, 0x00, 0x02, 0x18, 0x69, 0x01, 0x9d, 0x00, 0x02, 0xca);
+        branch(code, 0xd0, move);
+        //LDA #$00, STA $20
+        write(code, 0xa9, 0x00, 0x85, 0x20);
+        //Idle loop: LDA $20, BEQ wait
+        var wait = address(code);
+        write(code, 0xa5, 0x20);
+        branch(code, 0xf0, wait);
+        //JMP main
+        write(code, 0x4c, main & 0xff, main >> 8);
+
+        var nmi = address(code);
+        //PHA, LDA #$02, STA $4014
+        write(code, 0x48, 0xa9, 0x02, 0x8d, 0x14, 0x40);
+        //INC $21, LDA $21, STA $2005, STA $4002, LDA #$00, STA $2005
+        write(code, 0xe6, 0x21, 0xa5, 0x21, 0x8d, 0x05, 0x20, 0x8d, 0x02, 0x40, 0xa9, 0x00, 0x8d, 0x05, 0x20);
+        //INC $20, PLA, RTI
+        write(code, 0xe6, 0x20, 0x68, 0x40);
+
+        var chr = new byte[0x2000];
+        for (var i = 0; i < chr.length; i++) {
+            chr[i] = (byte) (i * 37);
+        }
+        return TestCartridge.nrom(code.toByteArray(), nmi, chr);
+    }
+
+    private static int address(ByteArrayOutputStream code) {
+        return ORIGIN + code.size();
+    }
+
+    /**
+     * Relative branch {@code opcode} to {@code target} before current position
+     */
+    private static void branch(ByteArrayOutputStream code, int opcode, int target) {
+        write(code, opcode, target - (address(code) + 2));
+    }
+}
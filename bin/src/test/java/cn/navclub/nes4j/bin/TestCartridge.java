@@ -0,0 +1,85 @@
+package cn.navclub.nes4j.bin;
+
+import cn.navclub.nes4j.bin.apu.Player;
+import cn.navclub.nes4j.bin.config.AudioSampleRate;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Generated mapper 0 cartridge for headless test.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class TestCartridge {
+    //Program start address
+    public static final int ORIGIN = 0x8000;
+
+    /**
+     * Discard all samples
+     */
+    public static class SilentPlayer implements Player {
+        public SilentPlayer(Integer sampleRate) {
+        }
+
+        @Override
+        public void output(byte sample) {
+
+        }
+
+        @Override
+        public void output(short[] samples, int offset, int length) {
+
+        }
+    }
+
+    /**
+     * 32KB PRG-ROM and 8KB blank CHR-ROM cartridge, {@code code} is placed at {@link #ORIGIN} which is reset vector.
+     * NMI and IRQ vector point to {@code RTI} after code.
+     */
+    public static byte[] nrom(byte[] code) {
+        return nrom(code, ORIGIN + code.length, new byte[0x2000]);
+    }
+
+    /**
+     * 32KB PRG-ROM and 8KB CHR-ROM cartridge, {@code code} is placed at {@link #ORIGIN} which is reset vector.
+     * IRQ vector point to {@code RTI} after code.
+     *
+     * @param nmi NMI handler address
+     * @param chr CHR-ROM content
+     */
+    public static byte[] nrom(byte[] code, int nmi, byte[] chr) {
+        var prg = new byte[0x8000];
+        System.arraycopy(code, 0, prg, 0, code.length);
+        var interrupt = ORIGIN + code.length;
+        //RTI
+        prg[code.length] = 0x40;
+        //NMI, RESET and IRQ vectors
+        var vectors = new int[]{nmi, ORIGIN, interrupt};
+        for (var i = 0; i < vectors.length; i++) {
+            prg[0x7ffa + i * 2] = (byte) vectors[i];
+            prg[0x7ffb + i * 2] = (byte) (vectors[i] >> 8);
+        }
+        var out = new ByteArrayOutputStream();
+        //iNES header: 2 x 16KB PRG-ROM, 1 x 8KB CHR-ROM, mapper 0
+        write(out, 'N', 'E', 'S', 0x1a, 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        out.writeBytes(prg);
+        out.writeBytes(chr);
+        return out.toByteArray();
+    }
+
+    /**
+     * Console of {@code rom} with {@link SilentPlayer}
+     */
+    public static NesConsole.Builder builder(byte[] rom) {
+        return NesConsole.Builder.newBuilder()
+                .buffer(rom)
+                .player(SilentPlayer.class)
+                .sampleRate(AudioSampleRate.HZ44100);
+    }
+
+    public static void write(ByteArrayOutputStream out, int... bytes) {
+        for (var b : bytes) {
+            out.write(b);
+        }
+    }
+}
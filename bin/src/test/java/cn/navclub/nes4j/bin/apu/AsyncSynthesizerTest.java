@@ -0,0 +1,131 @@
+package cn.navclub.nes4j.bin.apu;
+
+import cn.navclub.nes4j.bin.TestCartridge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AsyncSynthesizer} replay must output same samples as {@link Synthesizer} driven synchronously by same event
+ * stream.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class AsyncSynthesizerTest {
+    //Cpu cycles per NTSC frame
+    private static final int BLOCK = 29780;
+    private static final int BLOCK_COUNT = 120;
+    private static final int[] ADDRESS = {
+            0x4000, 0x4001, 0x4002, 0x4003, 0x4004, 0x4005, 0x4006, 0x4007,
+            0x4008, 0x400a, 0x400b, 0x400c, 0x400e, 0x400f, 0x4015
+    };
+
+    /**
+     * Record each output block
+     */
+    private static class RecordPlayer implements Player {
+        private final List<short[]> blocks = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void output(byte sample) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void output(short[] samples, int offset, int length) {
+            this.blocks.add(Arrays.copyOfRange(samples, offset, offset + length));
+        }
+    }
+
+    /**
+     * Record frame counter index replayed by audio thread
+     */
+    private static class RecordSynthesizer extends Synthesizer {
+        private final List<Integer> indexes = Collections.synchronizedList(new ArrayList<>());
+
+        RecordSynthesizer(APU apu, Player player) {
+            super(apu, player);
+        }
+
+        @Override
+        public void frameSequence(long cycle, int index) {
+            this.indexes.add(index);
+            super.frameSequence(cycle, index);
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void sameAsSynchronous() throws InterruptedException {
+        var apu = TestCartridge.builder(TestCartridge.nrom(new byte[0])).build().getApu();
+
+        var syncPlayer = new RecordPlayer();
+        var synthesizer = new Synthesizer(apu, syncPlayer);
+        var asyncPlayer = new RecordPlayer();
+        var recorder = new RecordSynthesizer(apu, asyncPlayer);
+        var async = new AsyncSynthesizer(recorder, asyncPlayer);
+
+        synthesizer.reset(0);
+        async.reset(0);
+
+        var indexes = new ArrayList<Integer>();
+        var random = new Random(25);
+        var cycle = 0L;
+        for (var block = 1; block <= BLOCK_COUNT; block++) {
+            var end = (long) block * BLOCK;
+            while (true) {
+                cycle += 1 + random.nextInt(400);
+                if (cycle >= end) {
+                    break;
+                }
+                var type = random.nextInt(10);
+                if (type < 6) {
+                    var address = ADDRESS[random.nextInt(ADDRESS.length)];
+                    //Keep channels mostly enabled so there is something to hear
+                    var b = (byte) (address == 0x4015 ? 0x0f : random.nextInt(256));
+                    synthesizer.write(cycle, address, b);
+                    async.write(cycle, address, b);
+                } else if (type < 8) {
+                    //-1 is immediate clock of $4017 write
+                    var index = random.nextInt(6) - 1;
+                    indexes.add(index);
+                    synthesizer.frameSequence(cycle, index);
+                    async.frameSequence(cycle, index);
+                } else {
+                    var output = random.nextInt(128);
+                    synthesizer.dmc(cycle, output);
+                    async.dmc(cycle, output);
+                }
+            }
+            cycle = end;
+            synthesizer.endBlock(end);
+            async.endBlock(end);
+        }
+
+        while (asyncPlayer.blocks.size() < BLOCK_COUNT) {
+            Thread.sleep(1);
+        }
+        async.stop();
+
+        Assertions.assertTrue(indexes.contains(-1));
+        Assertions.assertEquals(indexes, recorder.indexes);
+        Assertions.assertEquals(BLOCK_COUNT, syncPlayer.blocks.size());
+        Assertions.assertEquals(BLOCK_COUNT, asyncPlayer.blocks.size());
+        var audible = false;
+        for (var i = 0; i < BLOCK_COUNT; i++) {
+            var expect = syncPlayer.blocks.get(i);
+            Assertions.assertArrayEquals(expect, asyncPlayer.blocks.get(i), "block " + i);
+            for (var sample : expect) {
+                audible |= sample != 0;
+            }
+        }
+        Assertions.assertTrue(audible);
+    }
+}
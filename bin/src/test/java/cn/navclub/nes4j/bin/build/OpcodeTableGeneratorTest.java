@@ -0,0 +1,112 @@
+package cn.navclub.nes4j.bin.build;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build failure checks of {@link OpcodeTableGenerator#parse(Path)}, each case mutate a copy of {@code 6502.txt}.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class OpcodeTableGeneratorTest {
+    private static final Path SOURCE = Path.of("src", "build", "6502.txt");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parseSource() throws IOException {
+        var table = OpcodeTableGenerator.parse(SOURCE);
+        var defined = 0;
+        for (var row : table) {
+            if (row != null) {
+                defined++;
+            }
+        }
+        Assertions.assertEquals(256, table.length);
+        Assertions.assertEquals(231, defined);
+        Assertions.assertEquals("ADC", table[0x69].instruction());
+        Assertions.assertEquals("Relative", table[0x50].mode());
+    }
+
+    @Test
+    void malformedLine() throws IOException {
+        var lines = source();
+        lines.add("    ADC         Immediate       105     2");
+        this.assertFail(lines, "expect 'ins-name address-mode open-code cycle size'");
+    }
+
+    @Test
+    void illegalNumber() throws IOException {
+        var lines = source();
+        lines.add("    ADC         Immediate       0x69    2    2");
+        this.assertFail(lines, "illegal number");
+    }
+
+    @Test
+    void unknownMode() throws IOException {
+        var lines = source();
+        lines.add("    ADC         Immediately     105     2    2");
+        this.assertFail(lines, "unknown address mode 'Immediately'");
+    }
+
+    @Test
+    void duplicateOpcode() throws IOException {
+        var lines = source();
+        lines.add("    SBC         Immediate       105     2    2");
+        this.assertFail(lines, "repeat define opcode 0x69");
+    }
+
+    @Test
+    void missingOpcode() throws IOException {
+        var lines = source();
+        //NOP 0xEA
+        Assertions.assertTrue(lines.removeIf(line -> opcode(line) == 0xea));
+        this.assertFail(lines, "missing opcode 0xEA");
+    }
+
+    @Test
+    void sizeMismatch() throws IOException {
+        var lines = source();
+        lines.replaceAll(line -> opcode(line) == 0x69 ? "    ADC         Immediate       105     2    3" : line);
+        this.assertFail(lines, "ADC Immediate size is 3,expect 2");
+    }
+
+    @Test
+    void undefinedOpcode() throws IOException {
+        var lines = source();
+        //JAM 0x02
+        lines.add("    NOP         Implied         2       2    1");
+        this.assertFail(lines, "opcode 0x02 was declared undefined");
+    }
+
+    private void assertFail(List<String> lines, String message) throws IOException {
+        var file = this.dir.resolve("6502.txt");
+        Files.write(file, lines, StandardCharsets.UTF_8);
+        var e = Assertions.assertThrows(IllegalStateException.class, () -> OpcodeTableGenerator.parse(file));
+        Assertions.assertTrue(e.getMessage().contains(message), e.getMessage());
+    }
+
+    private static List<String> source() throws IOException {
+        return new ArrayList<>(Files.readAllLines(SOURCE, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Unsigned opcode of table line, -1 for comment or blank line
+     */
+    private static int opcode(String line) {
+        var arr = line.trim().split("\\s+");
+        if (line.trim().startsWith(";") || arr.length != 5) {
+            return -1;
+        }
+        return Byte.parseByte(arr[2]) & 0xff;
+    }
+}
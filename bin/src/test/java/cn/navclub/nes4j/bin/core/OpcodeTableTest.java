@@ -0,0 +1,64 @@
+package cn.navclub.nes4j.bin.core;
+
+import cn.navclub.nes4j.bin.config.AddressMode;
+import cn.navclub.nes4j.bin.config.Instruction;
+import cn.navclub.nes4j.bin.config.WS6502;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generated {@link OpcodeTable} must be same as the map {@link CPU} used to parse from {@code 6502.txt} at class init.
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class OpcodeTableTest {
+    @Test
+    void sameAsParsedMap() throws IOException {
+        var map = parse(Path.of("src", "build", "6502.txt"));
+        for (var i = 0; i < OpcodeTable.TABLE.length; i++) {
+            var expect = map.get((byte) i);
+            Assertions.assertEquals(expect, OpcodeTable.TABLE[i], "opcode 0x%02X".formatted(i));
+        }
+        Assertions.assertEquals(map.size(), OpcodeTable.TABLE.length - countNull());
+    }
+
+    private static int countNull() {
+        var count = 0;
+        for (var ws6502 : OpcodeTable.TABLE) {
+            if (ws6502 == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runtime parser removed from {@link CPU} when table became generated, kept here as reference
+     */
+    private static Map<Byte, WS6502> parse(Path path) throws IOException {
+        var map = new HashMap<Byte, WS6502>();
+        var pattern = "(\\w)+( )*(\\w)+( )*(-)?(\\d)+( )*(\\d)+( )*(\\d)+";
+        for (var line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            //Skip comment and blank line
+            if (line.startsWith(";") || line.isBlank() || !line.matches(pattern)) {
+                continue;
+            }
+            var arr = line.split("( )+");
+            var ins = Instruction.valueOf(arr[0]);
+            var addrMode = AddressMode.valueOf(arr[1]);
+            var opec = Byte.parseByte(arr[2]);
+            var cycle = Integer.parseInt(arr[3]);
+            var size = Integer.parseInt(arr[4]);
+            map.put(opec, new WS6502(opec, size, cycle, addrMode, ins));
+        }
+        return map;
+    }
+}
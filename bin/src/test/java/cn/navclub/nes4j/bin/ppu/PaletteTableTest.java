@@ -0,0 +1,36 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.config.FrameFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class PaletteTableTest {
+    @Test
+    void load() {
+        var ram = new byte[32];
+        ram[1] = 0x21;
+        var table = new PaletteTable(ram, FrameFormat.ARGB);
+        var palette = new int[64][];
+        for (var i = 0; i < palette.length; i++) {
+            palette[i] = new int[]{i, i * 2, i * 3};
+        }
+        table.load(palette);
+        //Palette ram entry resolved again
+        Assertions.assertEquals(0x21 << 16 | 0x42 << 8 | 0x63, table.getColors()[1]);
+        Assertions.assertEquals(0, table.getColors()[0]);
+        //Table keep its own copy
+        palette[0x21][0] = 0xff;
+        table.update();
+        Assertions.assertEquals(0x21, table.getSysPalette()[0x21][0]);
+        Assertions.assertEquals(0x21 << 16 | 0x42 << 8 | 0x63, table.getColors()[1]);
+    }
+
+    @Test
+    void loadSize() {
+        var table = new PaletteTable(new byte[32], FrameFormat.ARGB);
+        Assertions.assertThrows(RuntimeException.class, () -> table.load(new int[63][3]));
+    }
+}
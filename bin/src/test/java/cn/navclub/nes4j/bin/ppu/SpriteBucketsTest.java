@@ -0,0 +1,114 @@
+package cn.navclub.nes4j.bin.ppu;
+
+import cn.navclub.nes4j.bin.ppu.register.PPUControl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class SpriteBucketsTest {
+    //PPUCTRL sprite size bit
+    private static final byte SPRITE_8X16 = 0x20;
+
+    private byte[] oam;
+    private PPUControl ctr;
+    private SpriteBuckets buckets;
+
+    @BeforeEach
+    void setup() {
+        this.oam = new byte[256];
+        //Hide all sprites below visible area
+        for (var i = 0; i < 64; i++) {
+            this.oam[i * 4] = (byte) 0xf0;
+        }
+        this.ctr = new PPUControl();
+        this.buckets = new SpriteBuckets(this.oam, this.ctr);
+    }
+
+    /**
+     * Write OAM byte like OAMDATA($2004)
+     */
+    private void write(int address, int value) {
+        this.buckets.write(address, (byte) value);
+        this.oam[address] = (byte) value;
+    }
+
+    @Test
+    void overflow() {
+        //Sprites 3, 6, 9 ... 36 on scanline 100
+        for (var i = 1; i <= 12; i++) {
+            this.oam[i * 3 * 4] = 100;
+        }
+        this.buckets.invalidate();
+        Assertions.assertEquals(12, this.buckets.count(100));
+        Assertions.assertEquals(12, this.buckets.count(107));
+        Assertions.assertEquals(0, this.buckets.count(99));
+        Assertions.assertEquals(0, this.buckets.count(108));
+        for (var n = 0; n < SpriteBuckets.MAX_SPRITES; n++) {
+            Assertions.assertEquals((n + 1) * 3, this.buckets.sprite(100, n));
+            Assertions.assertEquals((n + 1) * 3, this.buckets.sprite(107, n));
+        }
+    }
+
+    @Test
+    void bottomClip() {
+        this.write(0, 0xfc);
+        this.write(4, 0xff);
+        this.ctr.update(SPRITE_8X16);
+        //Other 62 sprites at $F0 cover $F0-$FF
+        Assertions.assertEquals(62, this.buckets.count(0xfb));
+        Assertions.assertEquals(63, this.buckets.count(0xfc));
+        //Sprite 0 and 1 rows past scanline 255 are dropped
+        Assertions.assertEquals(64, this.buckets.count(0xff));
+        Assertions.assertEquals(0, this.buckets.sprite(0xff, 0));
+        Assertions.assertEquals(1, this.buckets.sprite(0xff, 1));
+        Assertions.assertEquals(2, this.buckets.sprite(0xfb, 0));
+    }
+
+    @Test
+    void sizeSwitch() {
+        this.write(0, 50);
+        Assertions.assertEquals(1, this.buckets.count(57));
+        Assertions.assertEquals(0, this.buckets.count(58));
+        this.ctr.update(SPRITE_8X16);
+        Assertions.assertEquals(1, this.buckets.count(65));
+        Assertions.assertEquals(0, this.buckets.count(66));
+        this.ctr.update((byte) 0);
+        Assertions.assertEquals(0, this.buckets.count(58));
+    }
+
+    @Test
+    void attributeWrite() {
+        this.write(0, 20);
+        Assertions.assertEquals(1, this.buckets.count(20));
+        //Tile, attribute and x byte don't move sprite
+        this.write(1, 0x11);
+        this.write(2, 0x22);
+        this.write(3, 0x33);
+        //Bypass write notify, list is not rebuilt so stale y is still used
+        this.oam[0] = 40;
+        Assertions.assertEquals(1, this.buckets.count(20));
+        Assertions.assertEquals(0, this.buckets.count(40));
+        //Y byte write rebuild list
+        this.write(4, 30);
+        Assertions.assertEquals(0, this.buckets.count(20));
+        Assertions.assertEquals(1, this.buckets.count(40));
+        Assertions.assertEquals(1, this.buckets.count(30));
+        Assertions.assertEquals(1, this.buckets.sprite(30, 0));
+    }
+
+    @Test
+    void sameValueWrite() {
+        this.write(0, 20);
+        Assertions.assertEquals(1, this.buckets.count(20));
+        this.oam[4] = 20;
+        //Rewrite same y value is not a change
+        this.write(0, 20);
+        Assertions.assertEquals(1, this.buckets.count(20));
+        this.buckets.invalidate();
+        Assertions.assertEquals(2, this.buckets.count(20));
+        Assertions.assertEquals(1, this.buckets.sprite(20, 1));
+    }
+}
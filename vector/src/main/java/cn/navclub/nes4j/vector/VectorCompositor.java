@@ -0,0 +1,60 @@
+package cn.navclub.nes4j.vector;
+
+import cn.navclub.nes4j.bin.ppu.Frame;
+import cn.navclub.nes4j.bin.ppu.LineCompositor;
+import cn.navclub.nes4j.bin.ppu.register.PPUMask;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>
+ * Composite {@link IntVector#SPECIES_PREFERRED} lane pixels at once, background/sprite select is done by lane
+ * mask blend instead of branch.
+ * </p>
+ * <p>
+ * Lives in its own optional module so {@code jdk.incubator.vector} is never part of nes4j-bin module graph, it is
+ * found by {@link LineCompositor#create()} through {@link java.util.ServiceLoader} when this module is present.
+ * </p>
+ *
+ * @author <a href="https://github.com/GZYangKui">GZYangKui</a>
+ */
+public class VectorCompositor implements LineCompositor {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    //Sprite behind background flag
+    private static final int BEHIND = 1 << 30;
+
+    @Override
+    public void composite(int[] background, int fineX, int[] foreground, int backdrop, PPUMask mask, int[] line) {
+        var showBackground = mask.showBackground();
+        var showSprite = mask.showSprite();
+        //Same as PPUMask#showLeftMostXXX(x),pixel of x <= 8 is hidden if flag not set
+        var leftBackground = mask.showLeftMostBackground(0);
+        var leftSprite = mask.showLeftMostSprite(0);
+
+        var length = SPECIES.length();
+        var lane = IntVector.zero(SPECIES).addIndex(1);
+        var all = SPECIES.maskAll(true);
+        var fill = IntVector.broadcast(SPECIES, backdrop);
+        for (var x = 0; x < Frame.width; x += length) {
+            var index = lane.add(x);
+            var pixel = fill;
+            if (showBackground) {
+                var visible = leftBackground ? all : index.compare(VectorOperators.GT, 8);
+                pixel = pixel.blend(IntVector.fromArray(SPECIES, background, x + fineX), visible);
+            }
+            if (showSprite) {
+                var value = IntVector.fromArray(SPECIES, foreground, x);
+                VectorMask<Integer> visible = value.compare(VectorOperators.NE, -1);
+                if (!leftSprite) {
+                    visible = visible.and(index.compare(VectorOperators.GT, 8));
+                }
+                //If sprite priority or background is transparent
+                var front = value.and(BEHIND).compare(VectorOperators.EQ, 0).or(pixel.compare(VectorOperators.LT, 0));
+                pixel = pixel.blend(value.and(0xffffff), visible.and(front));
+            }
+            pixel.or(0xff << 24).intoArray(line, x);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+import cn.navclub.nes4j.bin.ppu.LineCompositor;
+import cn.navclub.nes4j.vector.VectorCompositor;
+
+module cn.navclub.nes4j.vector {
+    requires cn.navclub.nes4j.bin;
+    requires jdk.incubator.vector;
+
+    exports cn.navclub.nes4j.vector;
+
+    provides LineCompositor with VectorCompositor;
+}